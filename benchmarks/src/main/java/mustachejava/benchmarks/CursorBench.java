@@ -0,0 +1,48 @@
+package mustachejava.benchmarks;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.util.ArrayCursor;
+import com.github.mustachejava.util.SlotSchema;
+import com.github.mustachejavabenchmarks.NullWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders a section over the 10000 rows of a columnar cursor. Run with -prof gc to
+ * see the allocation per render, the rows share the cursor as their scope rather
+ * than having an object each.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class CursorBench {
+
+  private static final int ROWS = 10000;
+
+  private final NullWriter nullWriter = new NullWriter();
+  private final Mustache rows = new DefaultMustacheFactory().compile(
+          new StringReader("{{#rows}}{{{name}}}={{{value}}}\n{{/rows}}"), "cursor");
+  private final ArrayCursor cursor;
+  private final Map<String, Object> scope = new HashMap<>();
+
+  {
+    String[] names = new String[ROWS];
+    String[] values = new String[ROWS];
+    for (int i = 0; i < ROWS; i++) {
+      names[i] = "name" + i;
+      values[i] = "value" + i;
+    }
+    cursor = new ArrayCursor(SlotSchema.of("name", "value"), names, values);
+    scope.put("rows", cursor);
+  }
+
+  @Benchmark
+  public void testRows() {
+    cursor.reset();
+    rows.execute(nullWriter, scope);
+  }
+
+}
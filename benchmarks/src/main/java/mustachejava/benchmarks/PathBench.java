@@ -0,0 +1,53 @@
+package mustachejava.benchmarks;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejavabenchmarks.NullWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Walks a warmed dot notation path through objects and a map. Run with -prof gc
+ * to see the allocation per render, the steps of the path don't allocate a list
+ * of scopes each.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class PathBench {
+
+  public static class User {
+    public final Profile profile = new Profile();
+  }
+
+  public static class Profile {
+    public final Map<String, Object> avatar = new HashMap<>();
+
+    Profile() {
+      avatar.put("url", new Url());
+    }
+  }
+
+  public static class Url {
+    public String url() {
+      return "avatar.png";
+    }
+  }
+
+  private final NullWriter nullWriter = new NullWriter();
+  private final Mustache path = new DefaultMustacheFactory().compile(
+          new StringReader("{{#user.profile.avatar.url.url}}.{{/user.profile.avatar.url.url}}"), "path");
+  private final Map<String, Object> model = new HashMap<>();
+
+  {
+    model.put("user", new User());
+  }
+
+  @Benchmark
+  public void testPath() {
+    path.execute(nullWriter, model);
+  }
+
+}
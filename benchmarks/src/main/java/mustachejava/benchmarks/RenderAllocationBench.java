@@ -0,0 +1,40 @@
+package mustachejava.benchmarks;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheResolver;
+import com.github.mustachejavabenchmarks.NullWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+
+/**
+ * Renders warmed templates whose scopes and recursion depth are kept on the pooled
+ * RenderContext. Run with -prof gc to see the allocation per render, which depends
+ * on what escape analysis removes and so isn't asserted by the tests.
+ */
+@SuppressWarnings("unused")
+@State(Scope.Benchmark)
+public class RenderAllocationBench {
+
+  public static class Node {
+    public final Node child;
+
+    Node(int depth) {
+      child = depth == 0 ? null : new Node(depth - 1);
+    }
+  }
+
+  private static final MustacheResolver resolver =
+          name -> new StringReader("{{#child}}({{>recursive}}){{/child}}");
+
+  private final NullWriter nullWriter = new NullWriter();
+  private final Mustache recursive = new DefaultMustacheFactory(resolver).compile("recursive");
+  private final Node node = new Node(5);
+
+  @Benchmark
+  public void testRecursivePartial() {
+    recursive.execute(nullWriter, node);
+  }
+
+}
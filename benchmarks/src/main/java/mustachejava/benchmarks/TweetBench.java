@@ -3,6 +3,7 @@ package mustachejava.benchmarks;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MappingJsonFactory;
 import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.FlatMustacheFactory;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheResolver;
 import com.github.mustachejavabenchmarks.NullWriter;
@@ -52,6 +53,18 @@ import static java.util.Collections.singletonList;
  * TweetBench.testCompilation  thrpt   20       44001.507 ±      1793.522  ops/s
  * TweetBench.testExecution    thrpt   20      444469.477 ±     12699.894  ops/s
  * TweetBench.testTimeline     thrpt   20       21863.356 ±       352.252  ops/s
+ * <p>
+ * Java 17.0.9, flat instruction stream. One run of -f 2 -wi 5 -i 10 on a single CPU
+ * Benchmark                       Mode  Cnt      Score      Error  Units
+ * TweetBench.testTimeline        thrpt   20  15309.025 ± 1561.095  ops/s
+ * TweetBench.testTimelineFlat    thrpt   20  14592.706 ± 1490.474  ops/s
+ * <p>
+ * Java 17.0.9, static partials inlined into their callers
+ * Benchmark                           Mode  Cnt      Score      Error  Units
+ * TweetBench.testTimeline            thrpt    8  15699.191 ± 1096.571  ops/s
+ * TweetBench.testTimelineInlined     thrpt    8  15833.357 ± 1370.793  ops/s
+ * TweetBench.testTimelineFlat        thrpt    8  14534.657 ± 1663.236  ops/s
+ * TweetBench.testTimelineFlatInlined thrpt    8  15757.201 ± 1152.185  ops/s
  */
 @SuppressWarnings("unused")
 @State(Scope.Benchmark)
@@ -59,6 +72,18 @@ public class TweetBench {
 
   private Mustache tweetMustache = new DefaultMustacheFactory().compile("tweet.mustache");
   private Mustache timelineMustache = new DefaultMustacheFactory().compile("timeline.mustache");
+  private Mustache timelineFlatMustache = new FlatMustacheFactory().compile("timeline.mustache");
+  private Mustache timelineInlinedMustache;
+  private Mustache timelineFlatInlinedMustache;
+
+  {
+    DefaultMustacheFactory inlining = new DefaultMustacheFactory();
+    inlining.setInlinePartials(true);
+    timelineInlinedMustache = inlining.compile("timeline.mustache");
+    FlatMustacheFactory flatInlining = new FlatMustacheFactory();
+    flatInlining.setInlinePartials(true);
+    timelineFlatInlinedMustache = flatInlining.compile("timeline.mustache");
+  }
   private Tweet tweet = new Tweet();
   private NullWriter nullWriter = new NullWriter();
   private List<Object> tweetScope = new ArrayList<>(singletonList(tweet));
@@ -131,6 +156,27 @@ public class TweetBench {
     timelineMustache.execute(nullWriter, timelineScope).close();
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void testTimelineFlat() throws IOException {
+    timelineFlatMustache.execute(nullWriter, timelineScope).close();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void testTimelineInlined() throws IOException {
+    timelineInlinedMustache.execute(nullWriter, timelineScope).close();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void testTimelineFlatInlined() throws IOException {
+    timelineFlatInlinedMustache.execute(nullWriter, timelineScope).close();
+  }
+
 
   private static ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
 
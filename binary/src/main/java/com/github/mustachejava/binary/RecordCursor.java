@@ -0,0 +1,155 @@
+package com.github.mustachejava.binary;
+
+import com.github.mustachejava.util.Cursor;
+import com.github.mustachejava.util.SlotSchema;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary records of a RecordSchema in a ByteBuffer, read in place. A cursor is either
+ * a scope for a single record or a section value over consecutive records, as for the
+ * lists within a record. It implements the Cursor protocol so templates resolve each
+ * name to its field once per call site and iterating the records moves the cursor
+ * rather than creating a scope per record.
+ * <p>
+ * Reading a field doesn't copy the record. Numbers and booleans are boxed, strings
+ * are decoded from UTF-8 and lists are cursors over the same buffer that are reused
+ * from one record to the next. A cursor is not thread safe, use one per render.
+ */
+public class RecordCursor implements Cursor {
+  private final ByteBuffer buffer;
+  private final RecordSchema schema;
+  private int start;
+  private int count;
+  private int row;
+  private int position;
+  // Reused cursors over the list fields of the current record
+  private RecordCursor[] lists;
+  // For buffers without an array
+  private byte[] scratch;
+
+  private RecordCursor(ByteBuffer buffer, RecordSchema schema, int start, int count, int row) {
+    this.buffer = buffer;
+    this.schema = schema;
+    point(start, count, row);
+  }
+
+  /**
+   * @param buffer the buffer, it is read with absolute gets so its position doesn't matter
+   * @param schema the layout of the record
+   * @param position the absolute position of the record
+   * @return a scope for the record
+   */
+  public static RecordCursor of(ByteBuffer buffer, RecordSchema schema, int position) {
+    return new RecordCursor(buffer, schema, position, 1, 0);
+  }
+
+  /**
+   * @param buffer the buffer, it is read with absolute gets so its position doesn't matter
+   * @param schema the layout of each record
+   * @param position the absolute position of the first record
+   * @param count the number of records
+   * @return a section value over the records
+   */
+  public static RecordCursor list(ByteBuffer buffer, RecordSchema schema, int position, int count) {
+    return new RecordCursor(buffer, schema, position, count, -1);
+  }
+
+  private RecordCursor point(int start, int count, int row) {
+    this.start = start;
+    this.count = count;
+    this.row = row;
+    this.position = start + row * schema.size();
+    return this;
+  }
+
+  public RecordSchema getRecordSchema() {
+    return schema;
+  }
+
+  @Override
+  public SlotSchema getSchema() {
+    return schema.getNames();
+  }
+
+  @Override
+  public boolean advance() {
+    if (row < count) {
+      row++;
+      position += schema.size();
+    }
+    return row < count;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Move back before the first record so the records can be iterated again.
+   */
+  public void reset() {
+    point(start, count, -1);
+  }
+
+  public int size() {
+    return count;
+  }
+
+  @Override
+  public Object get(int field) {
+    int offset = position + schema.getOffset(field);
+    switch (schema.getType(field)) {
+      case BOOLEAN:
+        return buffer.get(offset) != 0;
+      case INT:
+        return buffer.getInt(offset);
+      case LONG:
+        return buffer.getLong(offset);
+      case DOUBLE:
+        return buffer.getDouble(offset);
+      case STRING:
+        return getString(buffer.getInt(offset), buffer.getInt(offset + 4));
+      case LIST:
+        return getList(field, buffer.getInt(offset), buffer.getInt(offset + 4));
+      default:
+        throw new AssertionError(schema.getType(field));
+    }
+  }
+
+  private String getString(int at, int length) {
+    if (at < 0) return null;
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset() + at, length, StandardCharsets.UTF_8);
+    }
+    if (scratch == null || scratch.length < length) {
+      scratch = new byte[Math.max(length, 64)];
+    }
+    for (int i = 0; i < length; i++) {
+      scratch[i] = buffer.get(at + i);
+    }
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private RecordCursor getList(int field, int at, int length) {
+    RecordSchema element = schema.getElementSchema(field);
+    if (lists == null) {
+      lists = new RecordCursor[schema.getNames().size()];
+    }
+    RecordCursor list = lists[field];
+    if (list == null || list.row != -1 && list.row < list.count) {
+      // The first list of the field, or the last one is still being iterated
+      list = new RecordCursor(buffer, element, at, length, -1);
+      if (lists[field] == null) lists[field] = list;
+      return list;
+    }
+    return list.point(at, length, -1);
+  }
+
+  @Override
+  public String toString() {
+    return "[RecordCursor: " + schema + " " + row + "/" + count + "]";
+  }
+}
@@ -0,0 +1,143 @@
+package com.github.mustachejava.binary;
+
+import com.github.mustachejava.util.SlotSchema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The layout of a fixed size binary record. Fields follow each other without padding
+ * in the order they were added, each at a known offset from the start of the record.
+ * Numbers and booleans are stored in place, in the byte order of the buffer. Strings
+ * and lists are stored elsewhere in the same buffer and the record holds a reference
+ * to them, two ints with the absolute position and then the length in bytes of a UTF-8
+ * string or the number of elements of a list. A string with a negative position is
+ * null. The elements of a list follow each other, each a record of the element schema.
+ * Create a schema once per layout and reuse it, templates resolve names against it.
+ */
+public final class RecordSchema {
+  public enum FieldType {
+    BOOLEAN(1), INT(4), LONG(8), DOUBLE(8), STRING(8), LIST(8);
+
+    private final int size;
+
+    FieldType(int size) {
+      this.size = size;
+    }
+
+    public int size() {
+      return size;
+    }
+  }
+
+  private final SlotSchema names;
+  private final FieldType[] types;
+  private final int[] offsets;
+  private final RecordSchema[] elements;
+  private final int size;
+
+  private RecordSchema(SlotSchema names, FieldType[] types, int[] offsets, RecordSchema[] elements, int size) {
+    this.names = names;
+    this.types = types;
+    this.offsets = offsets;
+    this.elements = elements;
+    this.size = size;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return the names of the fields, the field of each name is its slot
+   */
+  public SlotSchema getNames() {
+    return names;
+  }
+
+  public FieldType getType(int field) {
+    return types[field];
+  }
+
+  /**
+   * @param field the slot of the field
+   * @return the offset of the field from the start of the record
+   */
+  public int getOffset(int field) {
+    return offsets[field];
+  }
+
+  /**
+   * @param field the slot of a LIST field
+   * @return the schema of the elements of the list
+   */
+  public RecordSchema getElementSchema(int field) {
+    return elements[field];
+  }
+
+  /**
+   * @return the size of a record in bytes
+   */
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "[RecordSchema: " + names.keys() + " " + size + "]";
+  }
+
+  public static final class Builder {
+    private final List<String> names = new ArrayList<>();
+    private final List<FieldType> types = new ArrayList<>();
+    private final List<RecordSchema> elements = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    private Builder add(String name, FieldType type, RecordSchema element) {
+      names.add(name);
+      types.add(type);
+      elements.add(element);
+      return this;
+    }
+
+    public Builder addBoolean(String name) {
+      return add(name, FieldType.BOOLEAN, null);
+    }
+
+    public Builder addInt(String name) {
+      return add(name, FieldType.INT, null);
+    }
+
+    public Builder addLong(String name) {
+      return add(name, FieldType.LONG, null);
+    }
+
+    public Builder addDouble(String name) {
+      return add(name, FieldType.DOUBLE, null);
+    }
+
+    public Builder addString(String name) {
+      return add(name, FieldType.STRING, null);
+    }
+
+    public Builder addList(String name, RecordSchema element) {
+      if (element == null) throw new IllegalArgumentException("List " + name + " needs an element schema");
+      return add(name, FieldType.LIST, element);
+    }
+
+    public RecordSchema build() {
+      int count = names.size();
+      FieldType[] types = this.types.toArray(new FieldType[0]);
+      int[] offsets = new int[count];
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        offsets[i] = size;
+        size += types[i].size();
+      }
+      return new RecordSchema(SlotSchema.of(names.toArray(new String[0])), types, offsets,
+              elements.toArray(new RecordSchema[0]), size);
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package com.github.mustachejava.binary;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.FlatMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class RecordCursorTest {
+  private static final RecordSchema ITEM = RecordSchema.builder()
+          .addString("sku")
+          .addInt("qty")
+          .build();
+  private static final RecordSchema ORDER = RecordSchema.builder()
+          .addLong("id")
+          .addDouble("total")
+          .addBoolean("paid")
+          .addString("customer")
+          .addList("items", ITEM)
+          .build();
+  private static final RecordSchema EXPORT = RecordSchema.builder()
+          .addString("title")
+          .addList("orders", ORDER)
+          .build();
+
+  private static final String TEMPLATE = "{{title}}\n{{#orders}}{{id}} {{customer}}{{^customer}}anonymous{{/customer}} " +
+          "{{total}}{{#paid}} paid{{/paid}}:{{#items}} {{qty}}x{{sku}}{{/items}}{{^items}} none{{/items}}\n{{/orders}}";
+
+  private static final String EXPECTED = "Export &amp; co\n" +
+          "1 Sam 12.5 paid: 2xa 1xb\n" +
+          "2 anonymous 0.25: none\n" +
+          "3 Zoë 7.0: 5xc\n";
+
+  // Writes records and the strings and lists they refer to
+  private static final class Encoder {
+    final ByteBuffer buffer;
+    int end;
+
+    Encoder(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    int allocate(int size) {
+      int at = end;
+      end += size;
+      return at;
+    }
+
+    void string(int at, String value) {
+      if (value == null) {
+        buffer.putInt(at, -1).putInt(at + 4, 0);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      int position = allocate(bytes.length);
+      for (int i = 0; i < bytes.length; i++) {
+        buffer.put(position + i, bytes[i]);
+      }
+      buffer.putInt(at, position).putInt(at + 4, bytes.length);
+    }
+
+    int list(int at, RecordSchema element, int count) {
+      int position = allocate(element.size() * count);
+      buffer.putInt(at, position).putInt(at + 4, count);
+      return position;
+    }
+  }
+
+  private static int export(Encoder e) {
+    int export = e.allocate(EXPORT.size());
+    e.string(export + EXPORT.getOffset(0), "Export & co");
+    int orders = e.list(export + EXPORT.getOffset(1), ORDER, 3);
+    Object[][] data = {
+            {1L, 12.5, true, "Sam", new Object[][]{{"a", 2}, {"b", 1}}},
+            {2L, 0.25, false, null, new Object[0][]},
+            {3L, 7.0, false, "Zoë", new Object[][]{{"c", 5}}},
+    };
+    for (int i = 0; i < data.length; i++) {
+      int order = orders + i * ORDER.size();
+      e.buffer.putLong(order + ORDER.getOffset(0), (Long) data[i][0]);
+      e.buffer.putDouble(order + ORDER.getOffset(1), (Double) data[i][1]);
+      e.buffer.put(order + ORDER.getOffset(2), (byte) ((Boolean) data[i][2] ? 1 : 0));
+      e.string(order + ORDER.getOffset(3), (String) data[i][3]);
+      Object[][] items = (Object[][]) data[i][4];
+      int item = e.list(order + ORDER.getOffset(4), ITEM, items.length);
+      for (Object[] values : items) {
+        e.string(item + ITEM.getOffset(0), (String) values[0]);
+        e.buffer.putInt(item + ITEM.getOffset(1), (Integer) values[1]);
+        item += ITEM.size();
+      }
+    }
+    return export;
+  }
+
+  private static String render(MustacheFactory mf, Object scope) throws IOException {
+    Mustache m = mf.compile(new StringReader(TEMPLATE), "records");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  @Test
+  public void testHeapBuffer() throws IOException {
+    Encoder e = new Encoder(ByteBuffer.allocate(4096));
+    int export = export(e);
+    assertEquals(EXPECTED, render(new DefaultMustacheFactory(), RecordCursor.of(e.buffer, EXPORT, export)));
+    assertEquals(EXPECTED, render(new FlatMustacheFactory(), RecordCursor.of(e.buffer, EXPORT, export)));
+  }
+
+  @Test
+  public void testDirectBuffer() throws IOException {
+    Encoder e = new Encoder(ByteBuffer.allocateDirect(4096).order(ByteOrder.LITTLE_ENDIAN));
+    e.allocate(100);
+    int export = export(e);
+    assertEquals(EXPECTED, render(new DefaultMustacheFactory(), RecordCursor.of(e.buffer, EXPORT, export)));
+  }
+
+  @Test
+  public void testList() throws IOException {
+    Encoder e = new Encoder(ByteBuffer.allocate(4096));
+    int export = export(e);
+    int orders = e.buffer.getInt(export + EXPORT.getOffset(1));
+    RecordCursor cursor = RecordCursor.list(e.buffer, ORDER, orders, 3);
+    Mustache m = new DefaultMustacheFactory().compile(new StringReader("{{#.}}{{id}}{{#items}}{{sku}}{{/items}},{{/.}}"), "list");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, cursor);
+    cursor.reset();
+    m.execute(sw, cursor);
+    assertEquals("1ab,2,3c,1ab,2,3c,", sw.toString());
+  }
+
+  @Test
+  public void testNestedIterationOfTheSameList() throws IOException {
+    Encoder e = new Encoder(ByteBuffer.allocate(4096));
+    int export = export(e);
+    Mustache m = new DefaultMustacheFactory().compile(new StringReader(
+            "{{#orders}}{{#items}}{{sku}}[{{#items}}{{sku}}{{/items}}]{{/items}};{{/orders}}"), "nested");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, RecordCursor.of(e.buffer, EXPORT, export));
+    assertEquals("a[ab]b[ab];;c[c];", sw.toString());
+  }
+}
@@ -1,6 +1,7 @@
 package com.github.mustachejava;
 
 import com.github.mustachejava.codes.DefaultMustache;
+import com.github.mustachejava.codes.TypeBinder;
 import com.github.mustachejava.reflect.ReflectionObjectHandler;
 import com.github.mustachejava.resolver.DefaultResolver;
 
@@ -8,7 +9,10 @@ import java.io.File;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
@@ -44,8 +48,17 @@ public class DefaultMustacheFactory implements MustacheFactory {
    */
   protected final ConcurrentHashMap<FragmentKey, Mustache> templateCache = createLambdaCache();
 
+  /**
+   * Templates compiled for the classes of their scopes are cached by name and classes.
+   */
+  protected final ConcurrentHashMap<List<Object>, Mustache> typedMustacheCache = new ConcurrentHashMap<>();
+
   protected int recursionLimit = 100;
 
+  protected boolean inlinePartials = false;
+
+  protected boolean hoistLoopInvariants = false;
+
   private final MustacheResolver mustacheResolver;
 
   protected ExecutorService es;
@@ -144,6 +157,8 @@ public class DefaultMustacheFactory implements MustacheFactory {
   /**
    * There is an ExecutorService that is used when executing parallel
    * operations when a Callable is returned from a mustache value or iterable.
+   * When a CompletionStage is returned the rest of the value or iterable is run
+   * on it once the stage completes rather than holding a thread until then.
    *
    * @return the executor service
    */
@@ -181,6 +196,29 @@ public class DefaultMustacheFactory implements MustacheFactory {
     return mustache;
   }
 
+  /**
+   * Compile a template whose scopes will always be instances of the given classes,
+   * the shapes that TypeCheckingHandler checks. Names are resolved against the
+   * classes once and their fields and methods are called directly, checking only
+   * scopes whose classes aren't final. The template is compiled separately from the
+   * one returned by compile(name) and must only be executed with these scopes.
+   *
+   * @param name the name of the template
+   * @param scopeTypes the classes of the scopes, outermost first
+   * @return the compiled template
+   */
+  public Mustache compile(String name, Class<?>... scopeTypes) {
+    List<Object> key = new ArrayList<>(scopeTypes.length + 1);
+    key.add(name);
+    key.addAll(Arrays.asList(scopeTypes));
+    return typedMustacheCache.computeIfAbsent(key, k -> {
+      Mustache mustache = mc.compile(name);
+      mustache.init();
+      TypeBinder.bind(mustache, getObjectHandler(), scopeTypes);
+      return mustache;
+    });
+  }
+
   @Override
   public Mustache compile(Reader reader, String name) {
     return compile(reader, name, "{{", "}}");
@@ -224,6 +262,37 @@ public class DefaultMustacheFactory implements MustacheFactory {
     return recursionLimit;
   }
 
+  /**
+   * Splice the codes of partials that can't recurse directly into the templates
+   * that include them when they are initialized, saving the partial call at runtime.
+   * The original codes are still used for identity() and invert().
+   *
+   * @param inlinePartials true to inline static, non-recursive partials
+   */
+  public void setInlinePartials(boolean inlinePartials) {
+    this.inlinePartials = inlinePartials;
+  }
+
+  public boolean isInlinePartials() {
+    return inlinePartials;
+  }
+
+  /**
+   * Look up values in the body of a section that resolve outside of the section
+   * once when the section is entered rather than once per element. A value is
+   * still looked up for an element that has it. Methods that are hoisted are
+   * assumed to return the same value every time they are called during the section.
+   *
+   * @param hoistLoopInvariants true to hoist values that don't depend on the element
+   */
+  public void setHoistLoopInvariants(boolean hoistLoopInvariants) {
+    this.hoistLoopInvariants = hoistLoopInvariants;
+  }
+
+  public boolean isHoistLoopInvariants() {
+    return hoistLoopInvariants;
+  }
+
   private final ThreadLocal<Map<String, Mustache>> partialCache = ThreadLocal.withInitial(HashMap::new);
 
   /**
@@ -17,7 +17,8 @@ public class DefaultMustacheVisitor implements MustacheVisitor {
   private static final Code[] EMPTY_CODES = new Code[0];
   protected static Logger logger = Logger.getLogger(DefaultMustacheVisitor.class.getSimpleName());
 
-  private static final Code EOF = new DefaultCode() {
+  // Marks the end of a template for invert(), it never writes anything
+  public static final Code EOF = new DefaultCode() {
     @Override
     public Node invert(Node node, String text, AtomicInteger position) {
       return text.length() == position.get() ? node : null;
@@ -1,8 +1,7 @@
 package com.github.mustachejava;
 
 import com.github.mustachejava.codes.PartialCode;
-import com.github.mustachejava.util.GuardException;
-import com.github.mustachejava.util.InternalArrayList;
+import com.github.mustachejava.util.RenderContext;
 import com.github.mustachejava.util.Wrapper;
 
 import java.io.File;
@@ -89,7 +88,7 @@ public class DeferringMustacheFactory extends DefaultMustacheFactory {
                 throw new MustacheException("Failed to write", e, tc);
               }
               // Make a copy of the scopes so we don't change them
-              List<Object> scopesCopy = new InternalArrayList<>(scopes);
+              List<Object> scopesCopy = RenderContext.snapshot(scopes);
               deferredCallable.add(
                       new Deferral(divid, getExecutorService().submit(() -> {
                         try {
@@ -107,15 +106,15 @@ public class DeferringMustacheFactory extends DefaultMustacheFactory {
           }
 
           private DeferredCallable getDeferred(List<Object> scopes) {
-            try {
-              if (deferredWrapper == null) {
-                deferredWrapper = getObjectHandler().find("deferred", scopes);
+            Wrapper wrapper = deferredWrapper;
+            if (wrapper != null) {
+              Object deferred = wrapper.tryCall(scopes);
+              if (deferred != Wrapper.GUARD_FAILED) {
+                return (DeferredCallable) deferred;
               }
-              return (DeferredCallable) deferredWrapper.call(scopes);
-            } catch (GuardException e) {
-              deferredWrapper = null;
-              return getDeferred(scopes);
             }
+            deferredWrapper = wrapper = getObjectHandler().find("deferred", scopes);
+            return (DeferredCallable) wrapper.call(scopes);
           }
         });
       }
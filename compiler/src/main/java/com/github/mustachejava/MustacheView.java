@@ -0,0 +1,18 @@
+package com.github.mustachejava;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class used as a scope so that the annotation processor in the processor
+ * module generates an accessor table for it. The reflection based object handlers
+ * call the generated accessors instead of looking up and invoking members reflectively.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface MustacheView {
+}
@@ -3,6 +3,7 @@ package com.github.mustachejava;
 import com.github.mustachejava.util.InternalArrayList;
 import com.github.mustachejava.util.Wrapper;
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.List;
 
@@ -69,6 +70,23 @@ public interface ObjectHandler {
    * @return a string representation of the object.
    */
   String stringify(Object object);
+
+  /**
+   * Write a value that can't contain characters that need escaping, like a number,
+   * straight to the writer without creating a String for it. Values that aren't
+   * written here are stringified and escaped. The standard handlers write integral
+   * numbers and booleans without a String. Doubles, floats, BigDecimals and
+   * BigIntegers are written with toString(), as matching it without a String would
+   * need a formatting algorithm of its own, but they still skip escaping.
+   *
+   * @param object the object to be displayed
+   * @param writer the writer to write to
+   * @return true if the value was written
+   * @throws IOException if the writer fails
+   */
+  default boolean format(Object object, Writer writer) throws IOException {
+    return false;
+  }
   
   static List<Object> makeList(Object scope) {
     List<Object> scopes = new InternalArrayList<>();
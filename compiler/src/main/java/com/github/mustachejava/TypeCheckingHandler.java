@@ -13,6 +13,7 @@ import java.util.List;
 /**
  * Rather than pulling values this looks only at types. To check if a template matches the shape
  * of your view classes, pass in the set of classes you expect to have at runtime in the scope.
+ * To bind a template to those classes ahead of time use DefaultMustacheFactory.compile(name, classes).
  *
  * User: sam
  * Date: 2/3/13
@@ -29,9 +29,11 @@ public class DefaultCode implements Code, Cloneable {
   protected final TemplateContext tc;
   protected final String type;
   protected final boolean returnThis;
-  protected final Binding binding;
+  // Replaced when a template is bound to the types of its scopes
+  protected Binding binding;
   protected final DefaultMustacheFactory df;
   protected final boolean dynamic;
+  protected final DynamicBindings dynamicBindings;
 
   @SuppressWarnings({"CloneDoesntCallSuperClone", "CloneDoesntDeclareCloneNotSupportedException"})
   public Object clone() {
@@ -87,6 +89,7 @@ public class DefaultCode implements Code, Cloneable {
       this.binding = oh == null ? null : oh.createBinding(name, tc, this);
       this.dynamic = false;
     }
+    this.dynamicBindings = dynamic && oh != null ? new DynamicBindings(oh, tc, this) : null;
     this.returnThis = ".".equals(name);
   }
 
@@ -131,6 +134,9 @@ public class DefaultCode implements Code, Cloneable {
         code.init();
       }
     }
+    if (mustache instanceof DefaultMustache) {
+      ((DefaultMustache) mustache).inlinePartials();
+    }
   }
 
   protected void filterText() {
@@ -150,10 +156,9 @@ public class DefaultCode implements Code, Cloneable {
     }
     try {
       if (dynamic) {
-        // We need to create a new binding each time, as the name is dynamic
+        // The name is dynamic so look up the binding for the name it resolved to
         String dynamicName = (String) binding.get(scopes);
-        // TODO: cache these bindings
-        return oh.createBinding(dynamicName, tc, this).get(scopes);
+        return dynamicBindings.get(dynamicName).get(scopes);
       }
       return binding.get(scopes);
     } catch (MustacheException e) {
@@ -245,6 +250,20 @@ public class DefaultCode implements Code, Cloneable {
     return false;
   }
 
+  /**
+   * @return the binding for the name or null if the code doesn't have one
+   */
+  public Binding getBinding() {
+    return binding;
+  }
+
+  /**
+   * @return the bindings cached for a dynamic name or null if the name isn't dynamic
+   */
+  public DynamicBindings getDynamicBindings() {
+    return dynamicBindings;
+  }
+
   @Override
   public String getName() {
     return name;
@@ -2,12 +2,16 @@ package com.github.mustachejava.codes;
 
 import com.github.mustachejava.Code;
 import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.DefaultMustacheVisitor;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.TemplateContext;
 import com.github.mustachejava.util.InternalArrayList;
+import com.github.mustachejava.util.RenderContext;
 import com.github.mustachejava.util.Node;
 
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -16,6 +20,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class DefaultMustache extends DefaultCode implements Mustache {
   private Code[] codes;
+  // The codes with static partials spliced in, if any
+  private Code[] runCodes;
   private boolean inited = false;
 
   public DefaultMustache(TemplateContext tc, DefaultMustacheFactory df, Code[] codes, String name) {
@@ -28,7 +34,16 @@ public class DefaultMustache extends DefaultCode implements Mustache {
     return codes;
   }
 
+  /**
+   * @return the codes that are actually run, which may have partials inlined
+   */
+  protected Code[] getRunCodes() {
+    Code[] rc = runCodes;
+    return rc == null ? codes : rc;
+  }
+
   public Writer run(Writer writer, List<Object> scopes) {
+    Code[] codes = getRunCodes();
     if (codes != null) {
       for (Code code : codes) {
         writer = code.execute(writer, scopes);
@@ -45,16 +60,45 @@ public class DefaultMustache extends DefaultCode implements Mustache {
   @Override
   public void setCodes(Code[] newcodes) {
     codes = newcodes;
+    // Never run stale inlined codes
+    runCodes = null;
+  }
+
+  @Override
+  public Writer execute(Writer writer, Object scope) {
+    RenderContext context = RenderContext.acquire();
+    try {
+      context.add(scope);
+      return super.execute(writer, context);
+    } finally {
+      context.release();
+    }
+  }
+
+  @Override
+  public Writer execute(Writer writer, Object[] scopes) {
+    RenderContext context = RenderContext.acquire();
+    try {
+      Collections.addAll(context, scopes);
+      return super.execute(writer, context);
+    } finally {
+      context.release();
+    }
   }
 
   @Override
   public Writer execute(Writer writer, List<Object> scopes) {
-    if (!(scopes instanceof InternalArrayList)) {
-      // This is the only place where we explicitly allocate post initialization for a compiled mustache
-      // in order to track the scopes as you descend the template. It ends up being ~200 bytes.
-      scopes = new InternalArrayList<>(scopes);
+    if (scopes instanceof InternalArrayList) {
+      return super.execute(writer, scopes);
+    }
+    // Track the scopes as we descend the template in the context pooled for this thread
+    RenderContext context = RenderContext.acquire();
+    try {
+      context.addAll(scopes);
+      return super.execute(writer, context);
+    } finally {
+      context.release();
     }
-    return super.execute(writer, scopes);
   }
 
   @Override
@@ -68,6 +112,57 @@ public class DefaultMustache extends DefaultCode implements Mustache {
     if (!inited) {
       inited = true;
       super.init();
+      inlinePartials();
+    }
+  }
+
+  /**
+   * Replace partials that can't recurse with the codes of the partial, merging
+   * the text on either side. Only used for running, identity() and invert()
+   * still see the partial itself.
+   */
+  void inlinePartials() {
+    if (df == null || !df.isInlinePartials() || codes == null) return;
+    List<Code> inlined = new ArrayList<>(codes.length);
+    boolean changed = false;
+    for (Code code : codes) {
+      if (code.getClass() == PartialCode.class) {
+        PartialCode pc = (PartialCode) code;
+        if (!pc.isRecursive && pc.partial instanceof DefaultMustache) {
+          DefaultMustache partial = (DefaultMustache) pc.partial;
+          if (!partial.isRecursive() && partial.appended == null) {
+            Code[] partialCodes = partial.getRunCodes();
+            if (partialCodes != null) {
+              for (Code partialCode : partialCodes) {
+                // The end of the partial isn't the end of the text being inverted
+                if (partialCode != DefaultMustacheVisitor.EOF) {
+                  add(inlined, partialCode);
+                }
+              }
+            }
+            if (pc.appended != null) {
+              add(inlined, new WriteCode(pc.tc, df, pc.appended));
+            }
+            changed = true;
+            continue;
+          }
+        }
+      }
+      add(inlined, code);
+    }
+    if (changed) {
+      runCodes = inlined.toArray(new Code[0]);
+    }
+  }
+
+  private void add(List<Code> inlined, Code code) {
+    int last = inlined.size() - 1;
+    if (last >= 0 && code.getClass() == WriteCode.class && inlined.get(last).getClass() == WriteCode.class) {
+      // Merge the text at the seams into a new code, the originals may be shared
+      WriteCode previous = (WriteCode) inlined.get(last);
+      inlined.set(last, new WriteCode(previous.tc, df, previous.appended + ((WriteCode) code).appended));
+    } else {
+      inlined.add(code);
     }
   }
 
@@ -0,0 +1,73 @@
+package com.github.mustachejava.codes;
+
+import com.github.mustachejava.Binding;
+import com.github.mustachejava.Code;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.TemplateContext;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The bindings for each name that a dynamic name has resolved to at a single
+ * call site. The number of names is bounded so a site that sees an unbounded
+ * number of them evicts an arbitrary binding to make room for the new one.
+ */
+public class DynamicBindings {
+  // The maximum number of names cached per call site
+  private static final int limit = Integer.getInteger("mustache.dynamicBindingLimit", 64);
+
+  private final ConcurrentHashMap<String, Binding> bindings = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private final ObjectHandler oh;
+  private final TemplateContext tc;
+  private final Code code;
+
+  public DynamicBindings(ObjectHandler oh, TemplateContext tc, Code code) {
+    this.oh = oh;
+    this.tc = tc;
+    this.code = code;
+  }
+
+  /**
+   * @param name the name the dynamic name resolved to
+   * @return the binding for the name at this call site
+   */
+  public Binding get(String name) {
+    if (name == null) {
+      // Can't be a key, let the object handler decide what it means
+      return oh.createBinding(null, tc, code);
+    }
+    Binding binding = bindings.get(name);
+    if (binding != null) {
+      hits.increment();
+      return binding;
+    }
+    misses.increment();
+    binding = oh.createBinding(name, tc, code);
+    if (bindings.size() >= limit) {
+      Iterator<String> iterator = bindings.keySet().iterator();
+      if (iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    Binding existing = bindings.putIfAbsent(name, binding);
+    return existing == null ? binding : existing;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public int size() {
+    return bindings.size();
+  }
+}
@@ -0,0 +1,46 @@
+package com.github.mustachejava.codes;
+
+import com.github.mustachejava.Code;
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.TemplateContext;
+
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * A mustache that lowers its codes to a flat instruction stream the first
+ * time it is run, after all the codes have been initialized, and executes
+ * that instead of walking the tree. The stream is rebuilt whenever the codes
+ * are replaced.
+ */
+public class FlatMustache extends DefaultMustache {
+  private volatile FlatProgram program;
+
+  public FlatMustache(TemplateContext tc, DefaultMustacheFactory df, Code[] codes, String name) {
+    super(tc, df, codes, name);
+  }
+
+  @Override
+  public Writer run(Writer writer, List<Object> scopes) {
+    FlatProgram fp = program;
+    if (fp == null) {
+      // Lowering is idempotent so racing threads can each build one
+      program = fp = FlatProgram.lower(tc, getRunCodes());
+    }
+    return fp.run(writer, scopes);
+  }
+
+  @Override
+  public void setCodes(Code[] newcodes) {
+    super.setCodes(newcodes);
+    program = null;
+  }
+
+  /**
+   * @return a listing of the instructions for debugging
+   */
+  public String disassemble() {
+    FlatProgram fp = program;
+    return fp == null ? FlatProgram.lower(tc, getRunCodes()).toString() : fp.toString();
+  }
+}
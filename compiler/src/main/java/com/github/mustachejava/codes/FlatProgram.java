@@ -0,0 +1,373 @@
+package com.github.mustachejava.codes;
+
+import com.github.mustachejava.Code;
+import com.github.mustachejava.DefaultMustacheVisitor;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.TemplateContext;
+import com.github.mustachejava.reflect.AbstractObjectHandler;
+import com.github.mustachejava.reflect.IterationStrategy;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * A tree of codes lowered to a linear instruction stream that is executed by a
+ * single dispatch loop. Static text, values and sections whose ObjectHandler
+ * uses the standard iteration rules are flattened, section bodies included.
+ * Anything else, partials, sections with hoisted loop invariants and user defined
+ * codes for instance, is executed
+ * through its own execute method.
+ * <p>
+ * Every instruction is three ints wide: the opcode and two operands. Common
+ * sequences are merged into superinstructions as they are emitted.
+ */
+final class FlatProgram {
+
+  // Write literals[a]
+  static final int LITERAL = 0;
+  // value = codes[a].get(scopes), or the hoisted value of a ValueCode
+  static final int LOOKUP = 1;
+  // Write value through the ValueCode codes[a], escaping if needed
+  static final int ESCAPE = 2;
+  // Superinstruction: LOOKUP a, ESCAPE a
+  static final int VALUE = 3;
+  // Superinstruction: LOOKUP a, ESCAPE a, LITERAL b
+  static final int VALUE_LITERAL = 4;
+  // Start iterating value for the IterableCode codes[a], jump to b when there is nothing to iterate
+  static final int LOOP_BEGIN = 5;
+  // Pop the current element and jump to b with the next one, fall through when done
+  static final int LOOP_END = 6;
+  // Run the body of the NotIterableCode codes[a] if value is falsey, otherwise jump to b
+  static final int INVERTED = 7;
+  // writer = codes[a].execute(writer, scopes)
+  static final int CODE = 8;
+
+  private static final String[] NAMES = {
+          "LITERAL", "LOOKUP", "ESCAPE", "VALUE", "VALUE_LITERAL", "LOOP_BEGIN", "LOOP_END", "INVERTED", "CODE"
+  };
+
+  private static final Object DONE = IterationStrategy.Position.DONE;
+
+  private final TemplateContext tc;
+  private final int[] program;
+  private final Code[] codes;
+  private final String[] literals;
+  private final int maxDepth;
+
+  private FlatProgram(TemplateContext tc, int[] program, Code[] codes, String[] literals, int maxDepth) {
+    this.tc = tc;
+    this.program = program;
+    this.codes = codes;
+    this.literals = literals;
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Lower the codes, they must already be initialized.
+   */
+  static FlatProgram lower(TemplateContext tc, Code[] codes) {
+    Lowering lowering = new Lowering();
+    if (codes != null) {
+      lowering.lower(codes);
+    }
+    return lowering.finish(tc);
+  }
+
+  Writer run(Writer writer, List<Object> scopes) {
+    final int[] program = this.program;
+    final int length = program.length;
+    Loop[] loops = maxDepth == 0 ? null : new Loop[maxDepth];
+    int depth = -1;
+    Object value = null;
+    int pc = 0;
+    while (pc < length) {
+      int a = program[pc + 1];
+      switch (program[pc]) {
+        case LITERAL:
+          write(writer, literals[a]);
+          pc += 3;
+          break;
+        case LOOKUP: {
+          DefaultCode code = (DefaultCode) codes[a];
+          value = code instanceof ValueCode ? ((ValueCode) code).lookup(scopes) : code.get(scopes);
+          pc += 3;
+          break;
+        }
+        case ESCAPE:
+          writer = ((ValueCode) codes[a]).writeValue(writer, value, scopes);
+          pc += 3;
+          break;
+        case VALUE: {
+          ValueCode code = (ValueCode) codes[a];
+          writer = code.writeValue(writer, code.lookup(scopes), scopes);
+          pc += 3;
+          break;
+        }
+        case VALUE_LITERAL: {
+          ValueCode code = (ValueCode) codes[a];
+          writer = code.writeValue(writer, code.lookup(scopes), scopes);
+          write(writer, literals[program[pc + 2]]);
+          pc += 3;
+          break;
+        }
+        case LOOP_BEGIN: {
+          IterableCode code = (IterableCode) codes[a];
+          if (value instanceof Function || value instanceof Callable || value instanceof CompletionStage) {
+            // Functions, callables and stages keep their interpreted semantics
+            writer = code.handle(writer, value, scopes);
+            pc = program[pc + 2];
+            break;
+          }
+          Loop loop = loops[++depth];
+          if (loop == null) {
+            loop = loops[depth] = new Loop();
+          }
+          Object next = loop.begin(value) ? loop.next(code.oh) : DONE;
+          if (next == DONE) {
+            loop.end();
+            depth--;
+            pc = program[pc + 2];
+          } else {
+            loop.pushed = code.addScope(scopes, next);
+            pc += 3;
+          }
+          break;
+        }
+        case LOOP_END: {
+          Loop loop = loops[depth];
+          if (loop.pushed) scopes.remove(scopes.size() - 1);
+          Object next = loop.next(((DefaultCode) codes[a]).oh);
+          if (next == DONE) {
+            loop.end();
+            depth--;
+            pc += 3;
+          } else {
+            loop.pushed = ((DefaultCode) codes[a]).addScope(scopes, next);
+            pc = program[pc + 2];
+          }
+          break;
+        }
+        case INVERTED:
+          if (value instanceof Callable || value instanceof CompletionStage) {
+            writer = ((NotIterableCode) codes[a]).handle(writer, value, scopes);
+            pc = program[pc + 2];
+          } else if (falsey(value)) {
+            pc += 3;
+          } else {
+            pc = program[pc + 2];
+          }
+          break;
+        case CODE:
+          writer = codes[a].execute(writer, scopes);
+          pc += 3;
+          break;
+        default:
+          throw new MustacheException("Invalid instruction " + program[pc] + " at " + pc, tc);
+      }
+    }
+    return writer;
+  }
+
+  private void write(Writer writer, String text) {
+    try {
+      writer.write(text);
+    } catch (IOException e) {
+      throw new MustacheException("Failed to write", e, tc);
+    }
+  }
+
+  // Same rules as AbstractObjectHandler.falsey()
+  private static boolean falsey(Object object) {
+    return object == null || IterationStrategy.of(object.getClass()).isFalsey(object);
+  }
+
+  /**
+   * Iteration state of a section, reused for every section at the same depth.
+   * The IterationStrategy of the value decides how it is iterated.
+   */
+  private static final class Loop extends IterationStrategy.Position {
+    private boolean pushed;
+  }
+
+  /**
+   * Emits instructions with symbolic jump targets and resolves them at the end.
+   */
+  private static final class Lowering {
+    private final List<Insn> insns = new ArrayList<>();
+    private final List<Code> codes = new ArrayList<>();
+    // Jumps to the next instruction emitted
+    private final List<Insn> targets = new ArrayList<>();
+    // Loops whose body starts at the next instruction emitted
+    private final List<Insn> bodies = new ArrayList<>();
+    private int depth;
+    private int maxDepth;
+
+    void lower(Code[] codes) {
+      for (Code code : codes) {
+        Class<? extends Code> c = code.getClass();
+        if (code == DefaultMustacheVisitor.EOF) {
+          // Only used by invert()
+          continue;
+        } else if (c == WriteCode.class) {
+          literal(((WriteCode) code).appended);
+        } else if (c == ValueCode.class) {
+          int site = site(code);
+          emit(LOOKUP, site);
+          emit(ESCAPE, site);
+          literal(((ValueCode) code).appended);
+        } else if (c == IterableCode.class && AbstractObjectHandler.isStandardIteration(((IterableCode) code).oh)
+                && !((IterableCode) code).hoistsInvariants()) {
+          // Sections that hoist values out of their body are left to IterableCode, which keeps them in its frame
+          IterableCode section = (IterableCode) code;
+          int site = site(code);
+          emit(LOOKUP, site);
+          Insn begin = emit(LOOP_BEGIN, site);
+          Insn end = new Insn(LOOP_END, site);
+          bodies.add(end);
+          maxDepth = Math.max(maxDepth, ++depth);
+          lower(runCodes(section.mustache));
+          depth--;
+          emit(end);
+          targets.add(begin);
+          literal(section.appended);
+        } else if (c == NotIterableCode.class && AbstractObjectHandler.isStandardIteration(((NotIterableCode) code).oh)) {
+          NotIterableCode section = (NotIterableCode) code;
+          int site = site(code);
+          emit(LOOKUP, site);
+          Insn inverted = emit(INVERTED, site);
+          lower(runCodes(section.mustache));
+          targets.add(inverted);
+          literal(section.appended);
+        } else {
+          emit(CODE, site(code));
+        }
+      }
+    }
+
+    private static Code[] runCodes(Mustache mustache) {
+      Code[] codes = mustache instanceof DefaultMustache ? ((DefaultMustache) mustache).getRunCodes() : mustache.getCodes();
+      return codes == null ? new Code[0] : codes;
+    }
+
+    private int site(Code code) {
+      codes.add(code);
+      return codes.size() - 1;
+    }
+
+    private Insn emit(int op, int a) {
+      return emit(new Insn(op, a));
+    }
+
+    private Insn emit(Insn insn) {
+      if (targets.isEmpty() && bodies.isEmpty()) {
+        // Merge common sequences into superinstructions, never across a jump target
+        Insn last = insns.isEmpty() ? null : insns.get(insns.size() - 1);
+        if (last != null) {
+          if (insn.op == ESCAPE && last.op == LOOKUP && last.a == insn.a) {
+            last.op = VALUE;
+            return last;
+          }
+          if (insn.op == LITERAL && last.op == VALUE) {
+            last.op = VALUE_LITERAL;
+            last.text = insn.text;
+            return last;
+          }
+          if (insn.op == LITERAL && (last.op == LITERAL || last.op == VALUE_LITERAL)) {
+            last.text = last.text + insn.text;
+            return last;
+          }
+        }
+      } else {
+        for (Insn jump : targets) jump.target = insn;
+        for (Insn loop : bodies) loop.target = insn;
+        targets.clear();
+        bodies.clear();
+      }
+      insns.add(insn);
+      return insn;
+    }
+
+    private void literal(String text) {
+      if (text != null && !text.isEmpty()) {
+        Insn insn = new Insn(LITERAL, 0);
+        insn.text = text;
+        emit(insn);
+      }
+    }
+
+    FlatProgram finish(TemplateContext tc) {
+      int[] program = new int[insns.size() * 3];
+      List<String> literals = new ArrayList<>();
+      for (int i = 0; i < insns.size(); i++) {
+        insns.get(i).position = i * 3;
+      }
+      for (Insn insn : insns) {
+        int pc = insn.position;
+        program[pc] = insn.op;
+        program[pc + 1] = insn.a;
+        switch (insn.op) {
+          case LITERAL:
+            program[pc + 1] = literals.size();
+            literals.add(insn.text);
+            break;
+          case VALUE_LITERAL:
+            program[pc + 2] = literals.size();
+            literals.add(insn.text);
+            break;
+          case LOOP_BEGIN:
+          case LOOP_END:
+          case INVERTED:
+            // Jump past the end of the program when nothing follows
+            program[pc + 2] = insn.target == null ? program.length : insn.target.position;
+            break;
+        }
+      }
+      return new FlatProgram(tc, program, codes.toArray(new Code[0]), literals.toArray(new String[0]), maxDepth);
+    }
+  }
+
+  private static final class Insn {
+    int op;
+    final int a;
+    String text;
+    Insn target;
+    int position;
+
+    Insn(int op, int a) {
+      this.op = op;
+      this.a = a;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int pc = 0; pc < program.length; pc += 3) {
+      int op = program[pc];
+      sb.append(pc).append(": ").append(NAMES[op]);
+      switch (op) {
+        case LITERAL:
+          sb.append(" \"").append(literals[program[pc + 1]]).append("\"");
+          break;
+        case VALUE_LITERAL:
+          sb.append(" ").append(codes[program[pc + 1]].getName()).append(" \"").append(literals[program[pc + 2]]).append("\"");
+          break;
+        case LOOP_BEGIN:
+        case LOOP_END:
+        case INVERTED:
+          sb.append(" ").append(codes[program[pc + 1]].getName()).append(" ").append(program[pc + 2]);
+          break;
+        default:
+          sb.append(" ").append(codes[program[pc + 1]].getName());
+      }
+      sb.append("\n");
+    }
+    return sb.toString();
+  }
+}
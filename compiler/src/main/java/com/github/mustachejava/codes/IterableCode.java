@@ -1,5 +1,6 @@
 package com.github.mustachejava.codes;
 
+import com.github.mustachejava.Code;
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.FragmentKey;
 import com.github.mustachejava.Iteration;
@@ -7,7 +8,9 @@ import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheException;
 import com.github.mustachejava.TemplateContext;
 import com.github.mustachejava.TemplateFunction;
-import com.github.mustachejava.util.InternalArrayList;
+import com.github.mustachejava.reflect.AbstractObjectHandler;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.util.RenderContext;
 import com.github.mustachejava.util.LatchedWriter;
 import com.github.mustachejava.util.Node;
 
@@ -17,6 +20,7 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -25,17 +29,63 @@ import static com.github.mustachejava.util.NodeValue.list;
 
 public class IterableCode extends DefaultCode implements Iteration {
 
+  private static final Object UNEVALUATED = new Object();
+
   private final ExecutorService les;
+  private LoopInvariant[] invariants;
+  // Null if the object handler iterates values itself
+  final SectionProfile profile;
 
   public IterableCode(TemplateContext tc, DefaultMustacheFactory df, Mustache mustache, String variable, String type) {
     super(tc, df, mustache, variable, type);
     les = df.getExecutorService();
+    profile = AbstractObjectHandler.isStandardIteration(oh) ? new SectionProfile(oh) : null;
   }
 
   public IterableCode(TemplateContext tc, DefaultMustacheFactory df, Mustache mustache, String variable) {
     this(tc, df, mustache, variable, "#");
   }
 
+  @Override
+  public synchronized void init() {
+    super.init();
+    invariants = findInvariants();
+  }
+
+  /**
+   * Only values directly in the body are candidates, nested sections push their
+   * own scopes and partials have their own codes. Whether an element has the
+   * name is still checked at runtime as the elements can be of any type.
+   */
+  private LoopInvariant[] findInvariants() {
+    if (df == null || !df.isHoistLoopInvariants() || getClass() != IterableCode.class
+            || !(oh instanceof ReflectionObjectHandler) || mustache == null) {
+      return null;
+    }
+    List<LoopInvariant> found = new ArrayList<>();
+    Code[] codes = mustache.getCodes();
+    if (codes != null) {
+      for (Code code : codes) {
+        if (code.getClass() == ValueCode.class) {
+          ValueCode valueCode = (ValueCode) code;
+          if (!valueCode.dynamic && !valueCode.returnThis) {
+            LoopInvariant invariant = new LoopInvariant(this, found.size(), valueCode, (ReflectionObjectHandler) oh);
+            valueCode.invariant = invariant;
+            found.add(invariant);
+          }
+        }
+      }
+    }
+    return found.isEmpty() ? null : found.toArray(new LoopInvariant[0]);
+  }
+
+  /**
+   * @return true if values in the body are looked up once per execution of the section
+   */
+  boolean hoistsInvariants() {
+    return invariants != null;
+  }
+
   @Override
   public Writer execute(Writer writer, final List<Object> scopes) {
     Object resolved = get(scopes);
@@ -50,6 +100,8 @@ public class IterableCode extends DefaultCode implements Iteration {
         writer = handleFunction(writer, (Function) resolved, scopes);
       } else if (resolved instanceof Callable) {
         writer = handleCallable(writer, (Callable) resolved, scopes);
+      } else if (resolved instanceof CompletionStage) {
+        writer = handleCompletionStage(writer, (CompletionStage) resolved, scopes);
       } else {
         writer = execute(writer, resolved, scopes);
       }
@@ -76,7 +128,7 @@ public class IterableCode extends DefaultCode implements Iteration {
       writer = latchedWriter;
       // Scopes must not cross thread boundaries as they
       // are thread locally reused
-      final List<Object> newScopes = new InternalArrayList<>(scopes);
+      final List<Object> newScopes = RenderContext.snapshot(scopes);
       les.execute(() -> {
         try {
           Object call = callable.call();
@@ -95,6 +147,72 @@ public class IterableCode extends DefaultCode implements Iteration {
     return writer;
   }
 
+  /**
+   * Render the section with the value of the stage once it completes. With an executor no
+   * thread waits for the stage, the rest of the section is run on the executor when the
+   * stage completes and the output is buffered until then. Stages in the body of the
+   * section are chained the same way, so an executor thread never waits for them either.
+   *
+   * @param writer the current writer
+   * @param stage the value of the section, still to be completed
+   * @param scopes the current scopes
+   * @return the writer for what comes after the section
+   */
+  protected Writer handleCompletionStage(Writer writer, final CompletionStage<?> stage, final List<Object> scopes) {
+    if (les == null) {
+      try {
+        writer = execute(writer, stage.toCompletableFuture().get(), scopes);
+      } catch (Exception e) {
+        throw new MustacheException(e, tc);
+      }
+    } else {
+      // Flush the current writer
+      try {
+        writer.flush();
+      } catch (IOException e) {
+        throw new MustacheException("Failed to flush writer", e, tc);
+      }
+      final Writer originalWriter = writer;
+      final LatchedWriter latchedWriter = new LatchedWriter(writer);
+      writer = latchedWriter;
+      // Scopes must not cross thread boundaries as they
+      // are thread locally reused
+      final List<Object> newScopes = RenderContext.snapshot(scopes);
+      stage.whenCompleteAsync((value, failure) -> {
+        if (failure != null) {
+          latchedWriter.failed(failure);
+          return;
+        }
+        try {
+          Writer subWriter = handle(originalWriter, value, newScopes);
+          // The body may still be waiting on values of its own, finish when it has them
+          // rather than waiting here. The writer before the section finishes on its own.
+          if (subWriter != originalWriter && subWriter instanceof LatchedWriter) {
+            ((LatchedWriter) subWriter).whenComplete(e -> complete(latchedWriter, e));
+          } else {
+            complete(latchedWriter, null);
+          }
+        } catch (Throwable e) {
+          latchedWriter.failed(e);
+        }
+      }, les);
+    }
+    return writer;
+  }
+
+  // Tell the replacement writer that we are done
+  private static void complete(LatchedWriter latchedWriter, Throwable failure) {
+    if (failure != null) {
+      latchedWriter.failed(failure);
+      return;
+    }
+    try {
+      latchedWriter.done();
+    } catch (Throwable e) {
+      latchedWriter.failed(e);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   protected Writer handleFunction(Writer writer, Function function, List<Object> scopes) {
     StringWriter sw = new StringWriter();
@@ -135,10 +253,38 @@ public class IterableCode extends DefaultCode implements Iteration {
   }
 
   protected Writer execute(Writer writer, Object resolve, List<Object> scopes) {
-    return oh.iterate(this, writer, resolve, scopes);
+    if (invariants == null || !(scopes instanceof RenderContext)) {
+      return iterate(writer, resolve, scopes);
+    }
+    // The values are looked up on the first element, if there is one
+    RenderContext context = (RenderContext) scopes;
+    int previous = context.enterFrame(this, invariants.length);
+    context.setFrameElement(UNEVALUATED);
+    try {
+      return iterate(writer, resolve, scopes);
+    } finally {
+      context.exitFrame(previous);
+    }
+  }
+
+  private Writer iterate(Writer writer, Object resolve, List<Object> scopes) {
+    return profile == null ? oh.iterate(this, writer, resolve, scopes) : profile.iterate(this, writer, resolve, scopes);
   }
 
   public Writer next(Writer writer, Object next, List<Object> scopes) {
+    if (invariants != null && scopes instanceof RenderContext) {
+      RenderContext context = (RenderContext) scopes;
+      if (context.getFrameOwner() == this) {
+        if (context.getFrameElement() == UNEVALUATED) {
+          for (LoopInvariant invariant : invariants) {
+            if (!invariant.dropped) {
+              context.setFrameValue(invariant.index, invariant.evaluate(scopes));
+            }
+          }
+        }
+        context.setFrameElement(next);
+      }
+    }
     boolean added = addScope(scopes, next);
     writer = run(writer, scopes);
     if (added) scopes.remove(scopes.size() - 1);
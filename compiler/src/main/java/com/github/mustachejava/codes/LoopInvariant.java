@@ -0,0 +1,88 @@
+package com.github.mustachejava.codes;
+
+import com.github.mustachejava.Binding;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.util.RenderContext;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A value in the body of a section that is looked up once when the section is
+ * entered. The value is kept in the frame of the section and only looked up
+ * again for elements that have the name themselves. Once the class of an element
+ * is seen to have the name the value is no longer hoisted, as elements would
+ * mostly look it up themselves.
+ */
+final class LoopInvariant {
+  static final Object NOT_HOISTED = new Object();
+
+  final IterableCode owner;
+  final int index;
+  private final ValueCode code;
+  private final ReflectionObjectHandler oh;
+  private final String name;
+  private final String first;
+  // Binding at the depth of the section rather than the depth of its body
+  private final Binding binding;
+  // The last class of element seen without the name, benign race
+  private Class<?> absent;
+  // Set once a class of element has the name, benign race
+  boolean dropped;
+
+  LoopInvariant(IterableCode owner, int index, ValueCode code, ReflectionObjectHandler oh) {
+    this.owner = owner;
+    this.index = index;
+    this.code = code;
+    this.oh = oh;
+    this.name = code.name;
+    int dotIndex = name.indexOf('.');
+    this.first = dotIndex == -1 ? null : name.substring(0, dotIndex);
+    this.binding = oh.createBinding(name, code.tc, code);
+  }
+
+  /**
+   * Look up the value in the scopes outside the section.
+   */
+  Object evaluate(List<Object> scopes) {
+    try {
+      return binding.get(scopes);
+    } catch (MustacheException e) {
+      e.setContext(code.tc);
+      throw e;
+    } catch (Throwable e) {
+      throw new MustacheException(e.getMessage(), e, code.tc);
+    }
+  }
+
+  /**
+   * @return the hoisted value or NOT_HOISTED if the current element has the name
+   */
+  Object get(RenderContext context) {
+    if (dropped) return NOT_HOISTED;
+    Object element = context.getFrameElement();
+    if (element != null && provides(element)) {
+      return NOT_HOISTED;
+    }
+    return context.getFrameValue(index);
+  }
+
+  private boolean provides(Object element) {
+    Object scope = oh.coerce(element);
+    if (scope == null) return false;
+    if (scope instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) scope;
+      if (map.containsKey(name) || (first != null && map.containsKey(first))) return true;
+    }
+    Class<?> scopeClass = scope.getClass();
+    if (scopeClass == absent) return false;
+    boolean provides = oh.provides(scope, name);
+    // Scopes whose names aren't decided by their class have to be asked every time
+    if (oh.namesDependOnClass(scopeClass)) {
+      if (provides) dropped = true;
+      else absent = scopeClass;
+    }
+    return provides;
+  }
+}
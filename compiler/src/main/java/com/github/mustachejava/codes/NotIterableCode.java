@@ -7,6 +7,7 @@ import com.github.mustachejava.TemplateContext;
 import java.io.Writer;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Runs the enclosed template once if the value is falsey.
@@ -20,6 +21,8 @@ public class NotIterableCode extends IterableCode {
   protected Writer handle(Writer writer, Object resolved, List<Object> scopes) {
     if (resolved instanceof Callable) {
       writer = handleCallable(writer, (Callable) resolved, scopes);
+    } else if (resolved instanceof CompletionStage) {
+      writer = handleCompletionStage(writer, (CompletionStage) resolved, scopes);
     } else {
       writer = execute(writer, resolved, scopes);
     }
@@ -28,7 +31,7 @@ public class NotIterableCode extends IterableCode {
 
   @Override
   protected Writer execute(Writer writer, Object resolve, List<Object> scopes) {
-    return oh.falsey(this, writer, resolve, scopes);
+    return profile == null ? oh.falsey(this, writer, resolve, scopes) : profile.falsey(this, writer, resolve, scopes);
   }
 
   @Override
@@ -1,6 +1,7 @@
 package com.github.mustachejava.codes;
 
 import com.github.mustachejava.*;
+import com.github.mustachejava.util.RenderContext;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -53,26 +54,37 @@ public class PartialCode extends DefaultCode {
 
   @Override
   public Writer execute(Writer writer, final List<Object> scopes) {
-    DepthLimitedWriter depthLimitedWriter = null;
     // If the mustache wasn't found to recurse at compilation time we
-    // don't need to track the recursion depth and therefore don't need
-    // to create and use the DepthLimitedWriter. Another allocation slain.
+    // don't need to track the recursion depth.
     if (isRecursive) {
-      if (writer instanceof DepthLimitedWriter) {
-        depthLimitedWriter = (DepthLimitedWriter) writer;
-      } else {
-        depthLimitedWriter = new DepthLimitedWriter(writer);
+      if (scopes instanceof RenderContext) {
+        // The depth is tracked by the render rather than a wrapping writer
+        RenderContext context = (RenderContext) scopes;
+        if (context.enter() > recrusionLimit) {
+          throw new MustacheException("Maximum partial recursion limit reached: " + recrusionLimit, tc);
+        }
+        Writer execute = executePartial(writer, scopes);
+        context.exit();
+        return appendText(execute);
       }
-      if (depthLimitedWriter.incr() > recrusionLimit) {
-        throw new MustacheException("Maximum partial recursion limit reached: " + recrusionLimit, tc);
-      }
-      writer = depthLimitedWriter;
+      return executeDepthLimited(writer, scopes);
     }
-    Writer execute = executePartial(writer, scopes);
-    if (isRecursive) {
-      assert depthLimitedWriter != null;
-      depthLimitedWriter.decr();
+    return appendText(executePartial(writer, scopes));
+  }
+
+  // Scopes that were not created by a mustache carry their depth in the writer
+  private Writer executeDepthLimited(Writer writer, final List<Object> scopes) {
+    DepthLimitedWriter depthLimitedWriter;
+    if (writer instanceof DepthLimitedWriter) {
+      depthLimitedWriter = (DepthLimitedWriter) writer;
+    } else {
+      depthLimitedWriter = new DepthLimitedWriter(writer);
+    }
+    if (depthLimitedWriter.incr() > recrusionLimit) {
+      throw new MustacheException("Maximum partial recursion limit reached: " + recrusionLimit, tc);
     }
+    Writer execute = executePartial(depthLimitedWriter, scopes);
+    depthLimitedWriter.decr();
     return appendText(execute);
   }
 
@@ -0,0 +1,57 @@
+package com.github.mustachejava.codes;
+
+import com.github.mustachejava.Iteration;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.IterationStrategy;
+
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Remembers the class of the first value a section sees and the strategy for
+ * it. Values of that class go straight to the strategy, any other class falls
+ * back to looking up its strategy.
+ */
+final class SectionProfile {
+  private final ObjectHandler oh;
+  // Set once, benign race
+  private Profiled profiled;
+
+  private static final class Profiled {
+    final Class<?> type;
+    final IterationStrategy strategy;
+
+    Profiled(Class<?> type, IterationStrategy strategy) {
+      this.type = type;
+      this.strategy = strategy;
+    }
+  }
+
+  SectionProfile(ObjectHandler oh) {
+    this.oh = oh;
+  }
+
+  Writer iterate(Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+    if (object == null) return writer;
+    return strategy(object).iterate(oh, iteration, writer, object, scopes);
+  }
+
+  Writer falsey(Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+    if (object == null) return iteration.next(writer, null, scopes);
+    return strategy(object).falsey(iteration, writer, object, scopes);
+  }
+
+  private IterationStrategy strategy(Object object) {
+    Class<?> type = object.getClass();
+    Profiled profiled = this.profiled;
+    if (profiled != null) {
+      if (profiled.type == type) {
+        return profiled.strategy;
+      }
+      return IterationStrategy.of(type);
+    }
+    IterationStrategy strategy = IterationStrategy.of(type);
+    this.profiled = new Profiled(type, strategy);
+    return strategy;
+  }
+}
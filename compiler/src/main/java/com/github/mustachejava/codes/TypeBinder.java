@@ -0,0 +1,90 @@
+package com.github.mustachejava.codes;
+
+import com.github.mustachejava.Binding;
+import com.github.mustachejava.Code;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.reflect.TypedBinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Walks a template with the classes its scopes will have, replacing the bindings
+ * of values and sections with TypedBindings. A code that is reached with
+ * different classes, for instance in a partial included from two places, keeps
+ * its original binding.
+ */
+public final class TypeBinder {
+  private final ReflectionObjectHandler oh;
+  private final Map<DefaultCode, List<Class<?>>> bound = new IdentityHashMap<>();
+  private final Map<DefaultCode, Binding> original = new IdentityHashMap<>();
+  // Partials being walked, recursion stops here and is left to the depth check of the bindings
+  private final Set<Mustache> partials = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private TypeBinder(ReflectionObjectHandler oh) {
+    this.oh = oh;
+  }
+
+  /**
+   * @param mustache the template, which must not be shared with templates of other scopes
+   * @param oh the object handler of the template
+   * @param scopeTypes the classes of the scopes, outermost first
+   */
+  public static void bind(Mustache mustache, ObjectHandler oh, Class<?>... scopeTypes) {
+    if (TypedBinding.supports(oh)) {
+      new TypeBinder((ReflectionObjectHandler) oh).walk(mustache.getCodes(), Arrays.asList(scopeTypes));
+    }
+  }
+
+  private void walk(Code[] codes, List<Class<?>> scopeTypes) {
+    if (codes == null) return;
+    for (Code code : codes) {
+      if (code instanceof NotIterableCode) {
+        NotIterableCode section = (NotIterableCode) code;
+        if (code.getClass() == NotIterableCode.class) bind(section, scopeTypes);
+        walk(section.getCodes(), scopeTypes);
+      } else if (code instanceof IterableCode) {
+        IterableCode section = (IterableCode) code;
+        Binding binding = code.getClass() == IterableCode.class ? bind(section, scopeTypes) : null;
+        List<Class<?>> bodyTypes = new ArrayList<>(scopeTypes);
+        bodyTypes.add(binding instanceof TypedBinding ? ((TypedBinding) binding).getElementType() : null);
+        walk(section.getCodes(), bodyTypes);
+      } else if (code.getClass() == ValueCode.class) {
+        bind((ValueCode) code, scopeTypes);
+      } else if (code instanceof PartialCode) {
+        Mustache partial = ((PartialCode) code).partial;
+        if (partial != null && partials.add(partial)) {
+          walk(code.getCodes(), scopeTypes);
+          partials.remove(partial);
+        }
+      } else {
+        walk(code.getCodes(), scopeTypes);
+      }
+    }
+  }
+
+  private Binding bind(DefaultCode code, List<Class<?>> scopeTypes) {
+    if (code.binding == null || code.dynamic || code.returnThis) return null;
+    List<Class<?>> previous = bound.get(code);
+    if (previous != null) {
+      if (!previous.equals(scopeTypes) && original.containsKey(code)) {
+        code.binding = original.remove(code);
+      }
+      return code.binding;
+    }
+    bound.put(code, new ArrayList<>(scopeTypes));
+    TypedBinding typed = TypedBinding.create(oh, code.name, code.binding, scopeTypes);
+    if (typed != null) {
+      original.put(code, code.binding);
+      code.binding = typed;
+    }
+    return code.binding;
+  }
+}
@@ -6,12 +6,14 @@ import com.github.mustachejava.MustacheException;
 import com.github.mustachejava.TemplateContext;
 import com.github.mustachejava.util.LatchedWriter;
 import com.github.mustachejava.util.Node;
+import com.github.mustachejava.util.RenderContext;
 
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -28,6 +30,11 @@ import static com.github.mustachejava.util.NodeValue.value;
 public class ValueCode extends DefaultCode {
   protected final boolean encoded;
   protected final ExecutorService les;
+  // Whether the object handler may write numbers and booleans itself, only if
+  // neither the factory nor this code change how values are written
+  private final boolean formatted;
+  // Set by the enclosing section when the value is hoisted out of its loop
+  LoopInvariant invariant;
 
   @Override
   public void identity(Writer writer) {
@@ -54,19 +61,48 @@ public class ValueCode extends DefaultCode {
     super(tc, df, null, variable, "");
     this.encoded = encoded;
     les = df.getExecutorService();
+    formatted = oh != null && (!encoded || standardEncode.get(df.getClass())) && standardExecute.get(getClass());
   }
 
+  private static final ClassValue<Boolean> standardEncode = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      try {
+        return c.getMethod("encode", String.class, Writer.class).getDeclaringClass() == DefaultMustacheFactory.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private static final ClassValue<Boolean> standardExecute = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      for (Class<?> type = c; type != ValueCode.class; type = type.getSuperclass()) {
+        try {
+          type.getDeclaredMethod("execute", Writer.class, String.class);
+          return false;
+        } catch (NoSuchMethodException e) {
+          // Not overridden here
+        }
+      }
+      return true;
+    }
+  };
+
   @Override
   public Writer execute(Writer writer, final List<Object> scopes) {
     try {
-      final Object object = get(scopes);
+      final Object object = lookup(scopes);
       if (object != null) {
         if (object instanceof Function) {
           handleFunction(writer, (Function) object, scopes);
         } else if (object instanceof Callable) {
           return handleCallable(writer, (Callable) object, scopes);
+        } else if (object instanceof CompletionStage) {
+          return handleCompletionStage(writer, (CompletionStage) object, scopes);
         } else {
-          execute(writer, oh.stringify(object));
+          write(writer, object);
         }
       }
       return super.execute(writer, scopes);
@@ -75,10 +111,32 @@ public class ValueCode extends DefaultCode {
     }
   }
 
+  /**
+   * Get the value, from the frame of the enclosing section if it is hoisted there.
+   */
+  Object lookup(List<Object> scopes) {
+    LoopInvariant invariant = this.invariant;
+    if (invariant != null && scopes instanceof RenderContext) {
+      RenderContext context = (RenderContext) scopes;
+      if (context.getFrameOwner() == invariant.owner) {
+        Object value = invariant.get(context);
+        if (value != LoopInvariant.NOT_HOISTED) {
+          return value;
+        }
+      }
+    }
+    return get(scopes);
+  }
+
   protected Writer handleCallable(Writer writer, final Callable callable, final List<Object> scopes) throws Exception {
+    return super.execute(writeCallable(writer, callable), scopes);
+  }
+
+  // Write the result of the callable, concurrently if we have an executor
+  Writer writeCallable(Writer writer, final Callable callable) throws Exception {
     if (les == null) {
       execute(writer, callable);
-      return super.execute(writer, scopes);
+      return writer;
     } else {
       // Flush the current writer
       try {
@@ -96,13 +154,75 @@ public class ValueCode extends DefaultCode {
           latchedWriter.failed(e);
         }
       });
-      return super.execute(latchedWriter, scopes);
+      return latchedWriter;
+    }
+  }
+
+  protected Writer handleCompletionStage(Writer writer, final CompletionStage stage, final List<Object> scopes) throws Exception {
+    return super.execute(writeCompletionStage(writer, stage), scopes);
+  }
+
+  // Write the value when the stage completes, no thread waits for it if we have an executor
+  Writer writeCompletionStage(Writer writer, final CompletionStage<?> stage) throws Exception {
+    if (les == null) {
+      Object value = stage.toCompletableFuture().get();
+      if (value != null) write(writer, value);
+      return writer;
+    } else {
+      // Flush the current writer
+      try {
+        writer.flush();
+      } catch (IOException e) {
+        throw new MustacheException("Failed to flush writer", e, tc);
+      }
+      final LatchedWriter latchedWriter = new LatchedWriter(writer);
+      final Writer finalWriter = writer;
+      stage.whenCompleteAsync((value, failure) -> {
+        if (failure != null) {
+          latchedWriter.failed(failure);
+          return;
+        }
+        try {
+          if (value != null) write(finalWriter, value);
+          latchedWriter.done();
+        } catch (Throwable e) {
+          latchedWriter.failed(e);
+        }
+      }, les);
+      return latchedWriter;
+    }
+  }
+
+  // Write an already resolved value without the appended text
+  Writer writeValue(Writer writer, Object object, List<Object> scopes) {
+    try {
+      if (object != null) {
+        if (object instanceof Function) {
+          handleFunction(writer, (Function) object, scopes);
+        } else if (object instanceof Callable) {
+          return writeCallable(writer, (Callable) object);
+        } else if (object instanceof CompletionStage) {
+          return writeCompletionStage(writer, (CompletionStage) object);
+        } else {
+          write(writer, object);
+        }
+      }
+      return writer;
+    } catch (Exception e) {
+      throw new MustacheException("Failed to get value for " + name, e, tc);
     }
   }
 
   private void execute(Writer writer, Callable callable) throws Exception {
     Object call = callable.call();
-    execute(writer, call == null ? null : oh.stringify(call));
+    if (call != null) write(writer, call);
+  }
+
+  // Numbers and booleans are written without a String when the object handler can
+  private void write(Writer writer, Object object) throws IOException {
+    if (!formatted || !oh.format(object, writer)) {
+      execute(writer, oh.stringify(object));
+    }
   }
 
   @SuppressWarnings("unchecked")
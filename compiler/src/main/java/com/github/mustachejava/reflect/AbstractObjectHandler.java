@@ -2,9 +2,12 @@ package com.github.mustachejava.reflect;
 
 import com.github.mustachejava.Iteration;
 import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Digits;
+
+import java.io.IOException;
 import java.io.Writer;
-import java.lang.reflect.Array;
-import java.util.Iterator;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,78 +32,82 @@ public abstract class AbstractObjectHandler implements ObjectHandler {
 
   @Override
   public Writer falsey(Iteration iteration, Writer writer, Object object, List<Object> scopes) {
-    if (object != null) {
-      if (object instanceof Boolean) {
-        if ((Boolean) object) {
-          return writer;
-        }
-      } else if (object instanceof String) {
-        if (!object.toString().equals("")) {
-          return writer;
-        }
-      } else if (object instanceof List) {
-        List list = (List) object;
-        int length = list.size();
-        if (length > 0) return writer;
-      } else if (object instanceof Iterable) {
-        Iterable iterable = (Iterable) object;
-        if (iterable.iterator().hasNext()) return writer;
-      } else if (object instanceof Iterator) {
-        Iterator iterator = (Iterator) object;
-        if (iterator.hasNext()) return writer;
-      } else if (object.getClass().isArray()) {
-        int length = Array.getLength(object);
-        if (length > 0) return writer;
-      } else {
-        // All other objects are truthy
-        return writer;
-      }
+    if (object == null) {
+      return iteration.next(writer, null, scopes);
     }
-    return iteration.next(writer, object, scopes);
+    return IterationStrategy.of(object.getClass()).falsey(iteration, writer, object, scopes);
   }
 
-  @SuppressWarnings("ForLoopReplaceableByForEach") // it allocates objects for foreach
   public Writer iterate(Iteration iteration, Writer writer, Object object, List<Object> scopes) {
     if (object == null) return writer;
-    if (object instanceof Boolean) {
-      if (!(Boolean) object) {
-        return writer;
-      }
-    }
-    if (object instanceof String) {
-      if (object.toString().equals("")) {
-        return writer;
-      }
-    }
-    if (object instanceof List) {
-      List list = (List) object;
-      int length = list.size();
-      for (int i = 0; i < length; i++) {
-        writer = iteration.next(writer, coerce(list.get(i)), scopes);
-      }
-    } else if (object instanceof Iterable) {
-      for (Object next : ((Iterable) object)) {
-        writer = iteration.next(writer, coerce(next), scopes);
-      }
-    } else if (object instanceof Iterator) {
-      Iterator iterator = (Iterator) object;
-      while (iterator.hasNext()) {
-        writer = iteration.next(writer, coerce(iterator.next()), scopes);
-      }
-    } else if (object.getClass().isArray()) {
-      int length = Array.getLength(object);
-      for (int i = 0; i < length; i++) {
-        writer = iteration.next(writer, coerce(Array.get(object, i)), scopes);
+    return IterationStrategy.of(object.getClass()).iterate(this, iteration, writer, object, scopes);
+  }
+
+  /**
+   * Sections may pick an IterationStrategy themselves when the handler iterates
+   * the same way this class does.
+   *
+   * @param oh the object handler
+   * @return true if neither iterate nor falsey is overridden
+   */
+  public static boolean isStandardIteration(ObjectHandler oh) {
+    return oh instanceof AbstractObjectHandler && standardIteration.get(oh.getClass());
+  }
+
+  private static final ClassValue<Boolean> standardIteration = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      try {
+        return c.getMethod("iterate", Iteration.class, Writer.class, Object.class, List.class).getDeclaringClass() == AbstractObjectHandler.class
+                && c.getMethod("falsey", Iteration.class, Writer.class, Object.class, List.class).getDeclaringClass() == AbstractObjectHandler.class;
+      } catch (NoSuchMethodException e) {
+        return false;
       }
-    } else {
-      writer = iteration.next(writer, object, scopes);
     }
-    return writer;
-  }
+  };
 
   @Override
   public String stringify(Object object) {
     return object.toString();
   }
 
+  @Override
+  public boolean format(Object object, Writer writer) throws IOException {
+    // A handler that displays values its own way has to format them itself
+    return standardStringify.get(getClass()) && formatValue(object, writer);
+  }
+
+  /**
+   * Write numbers and booleans as toString() would. Integral numbers and booleans are
+   * written without creating a String. None of them need to be escaped.
+   *
+   * @param object the value
+   * @param writer the writer to write to
+   * @return true if the value was written
+   * @throws IOException if the writer fails
+   */
+  public static boolean formatValue(Object object, Writer writer) throws IOException {
+    if (object instanceof Integer || object instanceof Long || object instanceof Short || object instanceof Byte) {
+      Digits.write(((Number) object).longValue(), writer);
+    } else if (object instanceof Boolean) {
+      writer.write((Boolean) object ? "true" : "false");
+    } else if (object instanceof Double || object instanceof Float || object instanceof BigDecimal || object instanceof BigInteger) {
+      writer.write(object.toString());
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  private static final ClassValue<Boolean> standardStringify = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      try {
+        return c.getMethod("stringify", Object.class).getDeclaringClass() == AbstractObjectHandler.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
 }
@@ -0,0 +1,52 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Wrapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A wrapper that calls a generated ViewAccessor rather than a reflected member.
+ * Guards and dot notation are handled exactly like a ReflectionWrapper.
+ */
+public class AccessorWrapper extends ReflectionWrapper {
+  private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
+  protected final String name;
+  protected final ViewAccessor accessor;
+
+  public AccessorWrapper(int scopeIndex, Wrapper[] wrappers, Guard[] guard, String name, ViewAccessor accessor, ObjectHandler oh) {
+    super(scopeIndex, wrappers, guard, null, EMPTY_ARGUMENTS, oh);
+    this.name = name;
+    this.accessor = accessor;
+  }
+
+  @Override
+  protected Object invoke(Object scope, List<Object> scopes) {
+    if (scope == null) return null;
+    try {
+      return accessor.get(scope);
+    } catch (ClassCastException e) {
+      throw new MustacheException("Error accessing " + getTargetDescription() + " on " + elementToString(scope)
+          + ", scope: [" + scopesToString(scopes) + "]" + ", guards: " + Arrays.toString(guards), e);
+    } catch (Exception e) {
+      throw new MustacheException("Error invoking " + getTargetDescription() + " on " + elementToString(scope), e);
+    }
+  }
+
+  public ViewAccessor getAccessor() {
+    return accessor;
+  }
+
+  @Override
+  protected String getTargetDescription() {
+    return "accessor " + name;
+  }
+
+  @Override
+  public String toString() {
+    return "accessor " + name + " " + accessor;
+  }
+}
@@ -7,6 +7,35 @@ import java.lang.reflect.Modifier;
 
 public abstract class BaseObjectHandler extends AbstractObjectHandler {
 
+  // Handlers that find and check members the default way can share what was found
+  private static final ClassValue<Boolean> defaultChecks = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      return declaringClass(c, "getMethod", Class.class, String.class, Class[].class) == BaseObjectHandler.class
+              && declaringClass(c, "getField", Class.class, String.class) == BaseObjectHandler.class
+              && declaringClass(c, "checkMethod", Method.class) == BaseObjectHandler.class
+              && declaringClass(c, "checkField", Field.class) == BaseObjectHandler.class
+              && declaringClass(c, "checkClass", Class.class) == BaseObjectHandler.class;
+    }
+  };
+
+  // Generated accessors follow the default rules so they can't be used if the rules change
+  private static final ClassValue<Boolean> defaultMemberRules = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      return defaultChecks.get(c) && declaringClass(c, "findMember", Class.class, String.class) == BaseObjectHandler.class;
+    }
+  };
+
+  // Handlers that only change the checks can still use the index rather than getMethod() and getField()
+  private static final ClassValue<Boolean> defaultGetters = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      return declaringClass(c, "getMethod", Class.class, String.class, Class[].class) == BaseObjectHandler.class
+              && declaringClass(c, "getField", Class.class, String.class) == BaseObjectHandler.class;
+    }
+  };
+
   protected Field getField(Class aClass, String name) throws NoSuchFieldException {
     Field member;
     try {
@@ -50,6 +79,21 @@ public abstract class BaseObjectHandler extends AbstractObjectHandler {
     if (String.class == sClass && "value".equals(name)) { // under java11 it would return a wrapper we don't want
       return null;
     }
+    if (defaultChecks.get(getClass())) {
+      // Every handler with the default rules finds the same member so it is kept with the class
+      MemberIndex index = MemberIndex.of(sClass);
+      Object member = index.getResolved(name);
+      if (member == null) {
+        AccessibleObject ao = resolveMember(sClass, name);
+        index.setResolved(name, ao);
+        return ao;
+      }
+      return member == MemberIndex.NONE ? null : (AccessibleObject) member;
+    }
+    return resolveMember(sClass, name);
+  }
+
+  private AccessibleObject resolveMember(Class sClass, String name) {
     if (checkClass(sClass)) {
       // We won't be able to get methods or members on the class directly, so we will look at superclasses and interfaces
       for (Class anInterface : sClass.getInterfaces()) {
@@ -65,8 +109,83 @@ public abstract class BaseObjectHandler extends AbstractObjectHandler {
     return findMemberOnClass(sClass, name);
   }
 
+  /**
+   * Find the accessor generated for a class annotated with MustacheView. It gets the
+   * same member that findMember() would find. Handlers that change how members are
+   * found or checked don't use generated accessors.
+   *
+   * @param sClass the class of the scope
+   * @param name the name to find
+   * @return the accessor or null if the member has to be found by reflection
+   */
+  protected ViewAccessor findAccessor(Class<?> sClass, String name) {
+    return defaultMemberRules.get(getClass()) ? ViewAccessors.find(sClass, name) : null;
+  }
+
   private AccessibleObject findMemberOnClass(Class sClass, String name) {
     if (name.isEmpty()) return null;
+    if (!defaultGetters.get(getClass())) {
+      return findMemberWithGetters(sClass, name);
+    }
+    AccessibleObject ao = findMethod(sClass, name);
+    if (ao == null) {
+      String propertyname = name.substring(0, 1).toUpperCase() +
+              (name.length() > 1 ? name.substring(1) : "");
+      ao = findMethod(sClass, "get" + propertyname);
+      if (ao == null) {
+        ao = findMethod(sClass, "is" + propertyname);
+        if (ao == null) {
+          ao = findField(sClass, name);
+        }
+      }
+    }
+    return ao;
+  }
+
+  // Same as getMethod() but a missing method is looked up in the index rather than thrown
+  private Method findMethod(Class<?> aClass, String name) {
+    MemberIndex index = MemberIndex.of(aClass);
+    Method member = index.getPublicMethod(name);
+    if (member == null) {
+      member = index.getDeclaredMethod(name);
+      if (member == null) {
+        Class superclass = aClass.getSuperclass();
+        if (superclass != null && superclass != Object.class) {
+          return findMethod(superclass, name);
+        }
+        return null;
+      }
+    }
+    try {
+      checkMethod(member);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    member.setAccessible(true);
+    return member;
+  }
+
+  // Same as getField() but a missing field is looked up in the index rather than thrown
+  private Field findField(Class<?> aClass, String name) {
+    Field member = MemberIndex.of(aClass).getDeclaredField(name);
+    if (member == null) {
+      Class superclass = aClass.getSuperclass();
+      if (superclass != null && superclass != Object.class) {
+        return findField(superclass, name);
+      }
+      return null;
+    }
+    try {
+      checkField(member);
+    } catch (NoSuchFieldException e) {
+      return null;
+    }
+    member.setAccessible(true);
+    return member;
+  }
+
+  // Used when getMethod() or getField() is overridden
+  private AccessibleObject findMemberWithGetters(Class sClass, String name) {
     AccessibleObject ao;
     try {
       ao = getMethod(sClass, name);
@@ -108,4 +227,17 @@ public abstract class BaseObjectHandler extends AbstractObjectHandler {
   protected boolean checkClass(Class sClass) {
     return (sClass.getModifiers() & Modifier.PUBLIC) != Modifier.PUBLIC;
   }
+
+  // The class that declares the method that instances of c call
+  static Class<?> declaringClass(Class<?> c, String name, Class<?>... parameterTypes) {
+    for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+      try {
+        k.getDeclaredMethod(name, parameterTypes);
+        return k;
+      } catch (NoSuchMethodException e) {
+        // Keep looking in the superclass
+      }
+    }
+    return null;
+  }
 }
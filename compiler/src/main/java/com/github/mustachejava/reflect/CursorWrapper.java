@@ -0,0 +1,75 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Cursor;
+import com.github.mustachejava.util.SlotSchema;
+import com.github.mustachejava.util.Wrapper;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Reads a column of the current row of a Cursor scope. The name was resolved to the
+ * column when the wrapper was created, a cursor with another schema fails the wrapper.
+ */
+public class CursorWrapper extends ReflectionWrapper {
+  private static final Method GET_METHOD;
+
+  static {
+    try {
+      GET_METHOD = Cursor.class.getMethod("get", int.class);
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  protected final String name;
+  protected final SlotSchema schema;
+  protected final int column;
+
+  public CursorWrapper(int scopeIndex, Wrapper[] wrappers, Guard[] guard, String name, SlotSchema schema, int column, ObjectHandler oh) {
+    super(scopeIndex, wrappers, guard, GET_METHOD, new Object[]{column}, oh);
+    this.name = name;
+    this.schema = schema;
+    this.column = column;
+  }
+
+  @Override
+  protected Object read(Object scope) {
+    if (scope instanceof Cursor) {
+      Cursor cursor = (Cursor) scope;
+      if (cursor.getSchema() == schema) {
+        return cursor.get(column);
+      }
+    }
+    return GUARD_FAILED;
+  }
+
+  @Override
+  protected Object invoke(Object scope, List<Object> scopes) {
+    return scope == null ? null : ((Cursor) scope).get(column);
+  }
+
+  public int getColumn() {
+    return column;
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() * 43 + column;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof CursorWrapper) {
+      CursorWrapper other = (CursorWrapper) o;
+      return schema == other.schema && column == other.column && super.equals(o);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "[CursorWrapper: " + name + " " + column + " " + schema + "]";
+  }
+}
@@ -1,10 +1,24 @@
 package com.github.mustachejava.reflect;
 
+import com.github.mustachejava.ObjectHandler;
+
 import java.util.List;
 
 /**
- * Simple specialization of Predicate
+ * Simple specialization of Predicate. Guards report a mismatch by returning
+ * false, never by throwing a GuardException.
  */
 public interface Guard {
   boolean apply(List<Object> input);
+
+  /**
+   * Apply the guard to a single scope as if it were the only one. Each step of
+   * dot notation is guarded this way so that no list has to be allocated.
+   *
+   * @param scope the only scope
+   * @return true if the guard passes
+   */
+  default boolean applyTo(Object scope) {
+    return apply(ObjectHandler.makeList(scope));
+  }
 }
@@ -11,8 +11,9 @@ import com.github.mustachejava.util.Wrapper;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Logger;
 
 import static java.util.Collections.singletonList;
@@ -31,11 +32,56 @@ public class GuardedBinding implements Binding {
   private static Logger logger = Logger.getLogger("mustache");
   private static boolean debug = Boolean.getBoolean("mustache.debug");
 
+  /**
+   * The number of wrappers a callsite will try in order before switching
+   * to a lookup keyed by the class of the innermost scope.
+   */
+  private static final int polymorphicLimit = Integer.getInteger("mustache.polymorphicLimit", 8);
+
+  /**
+   * The number of scope classes a megamorphic callsite keeps wrappers for. The
+   * lookup starts over when it is full.
+   */
+  private static final int megamorphicLimit = Integer.getInteger("mustache.megamorphicLimit", 64);
+
+  /**
+   * The states of the inline cache at a callsite.
+   */
+  public enum State {
+    UNINITIALIZED, MONOMORPHIC, POLYMORPHIC, MEGAMORPHIC
+  }
+
+  // Key used for the megamorphic lookup when there are no scopes
+  private static final Object NO_SCOPE = new Object();
+
+  /**
+   * Immutable state of the inline cache. A callsite moves through the states by
+   * replacing it with a compare and set so readers never block.
+   */
+  private static final class Cache {
+    final State state;
+    final Wrapper[] wrappers;
+    final ConcurrentMap<Object, Wrapper[]> megamorphic;
+
+    Cache(State state, Wrapper[] wrappers, ConcurrentMap<Object, Wrapper[]> megamorphic) {
+      this.state = state;
+      this.wrappers = wrappers;
+      this.megamorphic = megamorphic;
+    }
+  }
+
+  private static final Cache UNINITIALIZED = new Cache(State.UNINITIALIZED, EMPTY_WRAPPERS, null);
+
+  private static final AtomicReferenceFieldUpdater<GuardedBinding, Cache> CACHE =
+          AtomicReferenceFieldUpdater.newUpdater(GuardedBinding.class, Cache.class, "cache");
+
   private final ObjectHandler oh;
   private final TemplateContext tc;
   private final String name;
   private final Code code;
 
+  private volatile Cache cache = UNINITIALIZED;
+
   public GuardedBinding(ObjectHandler oh, String name, TemplateContext tc, Code code) {
     this.name = name;
     this.code = code;
@@ -44,11 +90,11 @@ public class GuardedBinding implements Binding {
   }
 
   /**
-   * The chances of a new guard every time is very low. Instead we will
-   * store previously used guards and try them all before creating a new one.
+   * @return the current state of the inline cache at this callsite
    */
-  private Set<Wrapper> previousSet = new CopyOnWriteArraySet<>();
-  private volatile Wrapper[] prevWrappers;
+  public State getState() {
+    return cache.state;
+  }
 
   /**
    * Retrieve the first value in the stacks of scopes that matches
@@ -66,40 +112,94 @@ public class GuardedBinding implements Binding {
   public Object get(List<Object> scopes) {
     // Loop over the wrappers and find the one that matches
     // this set of scopes or get a new one
-    Wrapper current = null;
-    Wrapper[] wrappers = prevWrappers;
+    Cache current = cache;
+    Wrapper[] wrappers = current.megamorphic == null ? current.wrappers : current.megamorphic.get(key(scopes));
     if (wrappers != null) {
-      for (int i = 0; i < wrappers.length; i++) {
-        Wrapper prevWrapper = wrappers[i];
+      for (Wrapper prevWrapper : wrappers) {
+        Object value;
         try {
-          current = prevWrapper;
-          return oh.coerce(prevWrapper.call(scopes));
-        } catch (GuardException ge) {
-          // Check the next one or create a new one
+          value = prevWrapper.tryCall(scopes);
         } catch (MustacheException me) {
-          throw new MustacheException("Failed: " + current, me, tc);
+          throw new MustacheException("Failed: " + prevWrapper, me, tc);
+        }
+        if (value != Wrapper.GUARD_FAILED) {
+          return oh.coerce(value);
         }
+        // Check the next one or create a new one
       }
     }
     return createAndGet(scopes);
   }
 
   private Object createAndGet(List<Object> scopes) {
-    // Make a new wrapper for this set of scopes and add it to the set
+    // Make a new wrapper for this set of scopes and add it to the cache
     Wrapper wrapper = getWrapper(name, scopes);
-    previousSet.add(wrapper);
-    if (prevWrappers == null || prevWrappers.length != previousSet.size()) {
-      prevWrappers = previousSet.toArray(EMPTY_WRAPPERS);
-    }
+    addWrapper(wrapper, scopes);
     // If this fails the guard, there is a bug
-    try {
-      return oh.coerce(wrapper.call(scopes));
-    } catch (GuardException e) {
-      throw new GuardException("BUG: Unexpected guard failure: " + name + " " + previousSet + " " + singletonList(scopes));
+    Object value = wrapper.tryCall(scopes);
+    if (value == Wrapper.GUARD_FAILED) {
+      throw new GuardException("BUG: Unexpected guard failure: " + name + " " + wrapper + " " + singletonList(scopes));
     }
+    return oh.coerce(value);
+  }
+
+  private void addWrapper(Wrapper wrapper, List<Object> scopes) {
+    while (true) {
+      Cache current = cache;
+      if (current.megamorphic != null) {
+        Object key = key(scopes);
+        if (current.megamorphic.size() >= megamorphicLimit && !current.megamorphic.containsKey(key)) {
+          current.megamorphic.clear();
+        }
+        current.megamorphic.compute(key, (k, wrappers) -> append(wrappers, wrapper));
+        return;
+      }
+      Wrapper[] wrappers = current.wrappers;
+      if (indexOf(wrappers, wrapper) != -1) {
+        // Another thread beat us to it
+        return;
+      }
+      Cache next;
+      if (wrappers.length < polymorphicLimit) {
+        Wrapper[] newWrappers = append(wrappers, wrapper);
+        next = new Cache(newWrappers.length == 1 ? State.MONOMORPHIC : State.POLYMORPHIC, newWrappers, null);
+      } else {
+        // Too many shapes at this callsite, key the wrappers by the class of the innermost scope
+        ConcurrentMap<Object, Wrapper[]> megamorphic = new ConcurrentHashMap<>();
+        megamorphic.put(key(scopes), new Wrapper[]{wrapper});
+        next = new Cache(State.MEGAMORPHIC, null, megamorphic);
+      }
+      if (CACHE.compareAndSet(this, current, next)) {
+        return;
+      }
+    }
+  }
+
+  private static Object key(List<Object> scopes) {
+    int size = scopes == null ? 0 : scopes.size();
+    Object scope = size == 0 ? null : scopes.get(size - 1);
+    return scope == null ? NO_SCOPE : scope.getClass();
+  }
+
+  private static int indexOf(Wrapper[] wrappers, Wrapper wrapper) {
+    for (int i = 0; i < wrappers.length; i++) {
+      if (wrappers[i].equals(wrapper)) return i;
+    }
+    return -1;
+  }
+
+  // Copy on write, dropping the oldest wrapper when the entry is full
+  private static Wrapper[] append(Wrapper[] wrappers, Wrapper wrapper) {
+    if (wrappers == null) return new Wrapper[]{wrapper};
+    if (indexOf(wrappers, wrapper) != -1) return wrappers;
+    int length = Math.min(wrappers.length, polymorphicLimit - 1);
+    Wrapper[] newWrappers = new Wrapper[length + 1];
+    System.arraycopy(wrappers, wrappers.length - length, newWrappers, 0, length);
+    newWrappers[length] = wrapper;
+    return newWrappers;
   }
 
-  protected synchronized Wrapper getWrapper(String name, List<Object> scopes) {
+  protected Wrapper getWrapper(String name, List<Object> scopes) {
     Wrapper wrapper = oh.find(name, scopes);
     if (wrapper instanceof MissingWrapper) {
       if (debug) {
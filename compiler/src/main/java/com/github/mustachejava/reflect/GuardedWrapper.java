@@ -21,14 +21,32 @@ public class GuardedWrapper implements Wrapper {
     guardException.setStackTrace(new StackTraceElement[0]);
   }
 
+  // Subclasses written before tryCall existed may only override call
+  private static final ClassValue<Boolean> overridesCall = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        Class<?> callClass = type.getMethod("call", List.class).getDeclaringClass();
+        Class<?> tryCallClass = type.getMethod("tryCall", List.class).getDeclaringClass();
+        return callClass != tryCallClass && tryCallClass.isAssignableFrom(callClass);
+      } catch (NoSuchMethodException e) {
+        throw new AssertionError(e);
+      }
+    }
+  };
+
   // Array of guards that must be satisfied
   protected final Guard[] guards;
 
+  // If true, tryCall has to go through call and catch the guard exception
+  protected final boolean legacyCall;
+
   // Hashcode cache
   private int hashCode;
 
   public GuardedWrapper(Guard[] guards) {
     this.guards = guards;
+    this.legacyCall = overridesCall.get(getClass());
   }
 
   @Override
@@ -37,12 +55,27 @@ public class GuardedWrapper implements Wrapper {
     return null;
   }
 
+  @Override
+  public Object tryCall(List<Object> scopes) {
+    if (legacyCall) {
+      return Wrapper.super.tryCall(scopes);
+    }
+    return guard(scopes) ? null : GUARD_FAILED;
+  }
+
   protected void guardCall(List<Object> scopes) throws GuardException {
+    if (!guard(scopes)) {
+      throw guardException;
+    }
+  }
+
+  protected boolean guard(List<Object> scopes) {
     for (Guard predicate : guards) {
       if (!predicate.apply(scopes)) {
-        throw guardException;
+        return false;
       }
     }
+    return true;
   }
 
   @Override
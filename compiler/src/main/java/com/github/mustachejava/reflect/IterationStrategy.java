@@ -0,0 +1,440 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.Iteration;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Cursor;
+
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * How a section treats a value of a given class. The strategy is chosen once per
+ * class, in the same order that the types were tested by AbstractObjectHandler,
+ * so a section doesn't need to test each value against every type.
+ */
+public enum IterationStrategy {
+  BOOLEAN {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      return (Boolean) object ? iteration.next(writer, object, scopes) : writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return !(Boolean) object;
+    }
+  },
+  STRING {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      return ((String) object).isEmpty() ? writer : iteration.next(writer, object, scopes);
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return ((String) object).isEmpty();
+    }
+  },
+  LIST {
+    @SuppressWarnings("ForLoopReplaceableByForEach") // it allocates objects for foreach
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      List list = (List) object;
+      int length = list.size();
+      for (int i = 0; i < length; i++) {
+        writer = iteration.next(writer, oh.coerce(list.get(i)), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return ((List) object).isEmpty();
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.length = ((List) object).size();
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.index < position.length ? oh.coerce(((List) position.source).get(position.index++)) : Position.DONE;
+    }
+  },
+  ITERABLE {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      for (Object next : ((Iterable) object)) {
+        writer = iteration.next(writer, oh.coerce(next), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return !((Iterable) object).iterator().hasNext();
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.iterator = ((Iterable) object).iterator();
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.iterator.hasNext() ? oh.coerce(position.iterator.next()) : Position.DONE;
+    }
+  },
+  ITERATOR {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      Iterator iterator = (Iterator) object;
+      while (iterator.hasNext()) {
+        writer = iteration.next(writer, oh.coerce(iterator.next()), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return !((Iterator) object).hasNext();
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.iterator = (Iterator) object;
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.iterator.hasNext() ? oh.coerce(position.iterator.next()) : Position.DONE;
+    }
+  },
+  OBJECT_ARRAY {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      Object[] array = (Object[]) object;
+      for (int i = 0; i < array.length; i++) {
+        writer = iteration.next(writer, oh.coerce(array[i]), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return ((Object[]) object).length == 0;
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.length = ((Object[]) object).length;
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.index < position.length ? oh.coerce(((Object[]) position.source)[position.index++]) : Position.DONE;
+    }
+  },
+  // Elements become scopes so they are boxed, but only by valueOf() and without reflection
+  INT_ARRAY {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      int[] array = (int[]) object;
+      for (int i = 0; i < array.length; i++) {
+        writer = iteration.next(writer, oh.coerce(Integer.valueOf(array[i])), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return ((int[]) object).length == 0;
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.length = ((int[]) object).length;
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.index < position.length ? oh.coerce(Integer.valueOf(((int[]) position.source)[position.index++])) : Position.DONE;
+    }
+  },
+  LONG_ARRAY {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      long[] array = (long[]) object;
+      for (int i = 0; i < array.length; i++) {
+        writer = iteration.next(writer, oh.coerce(Long.valueOf(array[i])), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return ((long[]) object).length == 0;
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.length = ((long[]) object).length;
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.index < position.length ? oh.coerce(Long.valueOf(((long[]) position.source)[position.index++])) : Position.DONE;
+    }
+  },
+  DOUBLE_ARRAY {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      double[] array = (double[]) object;
+      for (int i = 0; i < array.length; i++) {
+        writer = iteration.next(writer, oh.coerce(Double.valueOf(array[i])), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return ((double[]) object).length == 0;
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.length = ((double[]) object).length;
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.index < position.length ? oh.coerce(Double.valueOf(((double[]) position.source)[position.index++])) : Position.DONE;
+    }
+  },
+  // Any other primitive array
+  ARRAY {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      int length = Array.getLength(object);
+      for (int i = 0; i < length; i++) {
+        writer = iteration.next(writer, oh.coerce(Array.get(object, i)), scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return Array.getLength(object) == 0;
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      position.length = Array.getLength(object);
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return position.index < position.length ? oh.coerce(Array.get(position.source, position.index++)) : Position.DONE;
+    }
+  },
+  // The result set itself is the scope of every row, its cursor is moved from row to row
+  RESULT_SET {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      ResultSet resultSet = (ResultSet) object;
+      while (next(resultSet)) {
+        writer = iteration.next(writer, resultSet, scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      try {
+        // Both are false when there are no rows
+        ResultSet resultSet = (ResultSet) object;
+        return !resultSet.isBeforeFirst() && !resultSet.isAfterLast();
+      } catch (SQLFeatureNotSupportedException e) {
+        // Some drivers can't tell for forward only result sets
+        return false;
+      } catch (SQLException e) {
+        throw new MustacheException("Failed to read the result set", e);
+      }
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return next((ResultSet) position.source) ? position.source : Position.DONE;
+    }
+  },
+  // Like a result set the cursor is the scope of every row
+  CURSOR {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      Cursor cursor = (Cursor) object;
+      while (cursor.advance()) {
+        writer = iteration.next(writer, cursor, scopes);
+      }
+      return writer;
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return ((Cursor) object).isEmpty();
+    }
+
+    @Override
+    boolean begin(Position position, Object object) {
+      return true;
+    }
+
+    @Override
+    Object next(ObjectHandler oh, Position position) {
+      return ((Cursor) position.source).advance() ? position.source : Position.DONE;
+    }
+  },
+  // All other objects are truthy and iterated once
+  OBJECT {
+    @Override
+    public Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+      return iteration.next(writer, object, scopes);
+    }
+
+    @Override
+    public boolean isFalsey(Object object) {
+      return false;
+    }
+  };
+
+  private static final ClassValue<IterationStrategy> strategies = new ClassValue<IterationStrategy>() {
+    @Override
+    protected IterationStrategy computeValue(Class<?> type) {
+      if (type == Boolean.class) return BOOLEAN;
+      if (type == String.class) return STRING;
+      if (List.class.isAssignableFrom(type)) return LIST;
+      if (Iterable.class.isAssignableFrom(type)) return ITERABLE;
+      if (Iterator.class.isAssignableFrom(type)) return ITERATOR;
+      if (type == int[].class) return INT_ARRAY;
+      if (type == long[].class) return LONG_ARRAY;
+      if (type == double[].class) return DOUBLE_ARRAY;
+      if (type.isArray()) return type.getComponentType().isPrimitive() ? ARRAY : OBJECT_ARRAY;
+      if (ResultSet.class.isAssignableFrom(type)) return RESULT_SET;
+      if (Cursor.class.isAssignableFrom(type)) return CURSOR;
+      return OBJECT;
+    }
+  };
+
+  /**
+   * @param type the class of a non-null value
+   * @return the strategy for values of that class
+   */
+  public static IterationStrategy of(Class<?> type) {
+    return strategies.get(type);
+  }
+
+  /**
+   * Run the iteration once per element of the value, or once for a truthy value
+   * that isn't a collection. Elements are coerced by the object handler.
+   */
+  public abstract Writer iterate(ObjectHandler oh, Iteration iteration, Writer writer, Object object, List<Object> scopes);
+
+  public abstract boolean isFalsey(Object object);
+
+  /**
+   * Start iterating the value one element at a time, the same way as iterate().
+   * Values that aren't collections are iterated once if they are truthy.
+   *
+   * @return false if there is nothing to iterate
+   */
+  boolean begin(Position position, Object object) {
+    return !isFalsey(object);
+  }
+
+  /**
+   * @return the next element, coerced like iterate() does, or Position.DONE
+   */
+  Object next(ObjectHandler oh, Position position) {
+    // Single objects are not coerced
+    return position.index++ == 0 ? position.source : Position.DONE;
+  }
+
+  /**
+   * Where an iteration is when it is driven one element at a time by a caller
+   * that can't hand over an Iteration. A position can be reused after end().
+   */
+  public static class Position {
+    public static final Object DONE = new Object();
+
+    private IterationStrategy strategy;
+    private Object source;
+    private Iterator iterator;
+    private int index;
+    private int length;
+
+    /**
+     * @param object the value of the section, may be null
+     * @return false if there is nothing to iterate
+     */
+    public boolean begin(Object object) {
+      if (object == null) return false;
+      strategy = of(object.getClass());
+      index = 0;
+      source = object;
+      return strategy.begin(this, object);
+    }
+
+    /**
+     * @return the next element or DONE
+     */
+    public Object next(ObjectHandler oh) {
+      return strategy.next(oh, this);
+    }
+
+    public void end() {
+      // Don't hold onto the data between executions
+      source = null;
+      iterator = null;
+    }
+  }
+
+  /**
+   * Move a result set to its next row.
+   *
+   * @param resultSet the result set
+   * @return false if there are no more rows
+   */
+  public static boolean next(ResultSet resultSet) {
+    try {
+      return resultSet.next();
+    } catch (SQLException e) {
+      throw new MustacheException("Failed to read the result set", e);
+    }
+  }
+
+  /**
+   * Run the iteration once if the value is falsey.
+   */
+  public Writer falsey(Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+    return isFalsey(object) ? iteration.next(writer, object, scopes) : writer;
+  }
+}
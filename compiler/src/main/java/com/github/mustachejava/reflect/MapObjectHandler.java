@@ -12,10 +12,7 @@ public class MapObjectHandler extends SimpleObjectHandler {
   @Override
   public Object get(String name, Object scope) {
     if (scope instanceof Map) {
-      Map map = (Map) scope;
-      if (map.containsKey(name)) {
-        return map.get(name);
-      }
+      return MapWrapper.get((Map) scope, name, NOT_FOUND);
     }
     return NOT_FOUND;
   }
@@ -0,0 +1,88 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Wrapper;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gets a name out of a Map scope with a single lookup and without reflection. The
+ * lookup also stands in for the guard that the map still has the name, a map without
+ * it fails the wrapper the same way a MapGuard would have.
+ */
+public class MapWrapper extends ReflectionWrapper {
+  private static final Object MISSING = new Object();
+
+  // Maps whose getOrDefault() agrees with their containsKey() and get()
+  private static final ClassValue<Boolean> singleLookup = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        Class<?> getOrDefault = type.getMethod("getOrDefault", Object.class, Object.class).getDeclaringClass();
+        // The default method is written in terms of get() and containsKey()
+        if (getOrDefault.isInterface()) return true;
+        return type.getMethod("get", Object.class).getDeclaringClass().isAssignableFrom(getOrDefault)
+                && type.getMethod("containsKey", Object.class).getDeclaringClass().isAssignableFrom(getOrDefault);
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  protected final String name;
+
+  public MapWrapper(int scopeIndex, Wrapper[] wrappers, Guard[] guard, String name, ObjectHandler oh) {
+    super(scopeIndex, wrappers, guard, ReflectionObjectHandler.MAP_METHOD, new Object[]{name}, oh);
+    this.name = name;
+  }
+
+  /**
+   * Look up a key with as few lookups as the map allows.
+   *
+   * @param map the map
+   * @param key the key
+   * @param missing returned if the map doesn't contain the key
+   * @return the value, which may be null, or missing
+   */
+  @SuppressWarnings("unchecked")
+  public static Object get(Map map, Object key, Object missing) {
+    if (singleLookup.get(map.getClass())) {
+      return map.getOrDefault(key, missing);
+    }
+    return map.containsKey(key) ? map.get(key) : missing;
+  }
+
+  @Override
+  protected Object read(Object scope) {
+    if (scope instanceof Map) {
+      Object value = get((Map) scope, name, MISSING);
+      return value == MISSING ? GUARD_FAILED : value;
+    }
+    return GUARD_FAILED;
+  }
+
+  @Override
+  protected Object invoke(Object scope, List<Object> scopes) {
+    return scope == null ? null : ((Map) scope).get(name);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() * 43 + name.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof MapWrapper && name.equals(((MapWrapper) o).name) && super.equals(o);
+  }
+
+  @Override
+  public String toString() {
+    return "[MapWrapper: " + name + "]";
+  }
+}
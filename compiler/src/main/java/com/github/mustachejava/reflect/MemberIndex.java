@@ -0,0 +1,88 @@
+package com.github.mustachejava.reflect;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The no argument methods and the fields of a class by name, built once per class
+ * so that looking for a member that isn't there doesn't throw. It also remembers
+ * the member each name resolved to under the default rules of BaseObjectHandler,
+ * including names that resolved to nothing. Indexes are kept by a ClassValue so
+ * they are released with their class and don't keep its class loader alive.
+ */
+final class MemberIndex {
+  // Resolved to no member
+  static final Object NONE = new Object();
+
+  private static final ClassValue<MemberIndex> indexes = new ClassValue<MemberIndex>() {
+    @Override
+    protected MemberIndex computeValue(Class<?> type) {
+      return new MemberIndex(type);
+    }
+  };
+
+  // What Class.getMethod() finds, less the methods of Object
+  private final Map<String, Method> publicMethods = new HashMap<>();
+  // What Class.getDeclaredMethod() finds
+  private final Map<String, Method> declaredMethods = new HashMap<>();
+  // What Class.getDeclaredField() finds
+  private final Map<String, Field> declaredFields = new HashMap<>();
+  // Names resolved with the default rules, NONE if there was no member
+  private final Map<String, Object> resolved = new ConcurrentHashMap<>();
+
+  private MemberIndex(Class<?> type) {
+    for (Method method : type.getMethods()) {
+      if (method.getParameterCount() == 0 && method.getDeclaringClass() != Object.class) {
+        put(publicMethods, method);
+      }
+    }
+    for (Method method : type.getDeclaredMethods()) {
+      if (method.getParameterCount() == 0) {
+        put(declaredMethods, method);
+      }
+    }
+    for (Field field : type.getDeclaredFields()) {
+      declaredFields.put(field.getName(), field);
+    }
+  }
+
+  // Bridge methods share the name of the method they bridge to, which is the one reflection returns
+  private static void put(Map<String, Method> methods, Method method) {
+    Method previous = methods.putIfAbsent(method.getName(), method);
+    if (previous != null && previous.isBridge() && !method.isBridge()) {
+      methods.put(method.getName(), method);
+    }
+  }
+
+  static MemberIndex of(Class<?> type) {
+    return indexes.get(type);
+  }
+
+  Method getPublicMethod(String name) {
+    return publicMethods.get(name);
+  }
+
+  Method getDeclaredMethod(String name) {
+    return declaredMethods.get(name);
+  }
+
+  Field getDeclaredField(String name) {
+    return declaredFields.get(name);
+  }
+
+  /**
+   * @param name the name
+   * @return the member the name resolved to, NONE if there isn't one or null if it hasn't been resolved
+   */
+  Object getResolved(String name) {
+    return resolved.get(name);
+  }
+
+  void setResolved(String name, AccessibleObject member) {
+    resolved.put(name, member == null ? NONE : member);
+  }
+}
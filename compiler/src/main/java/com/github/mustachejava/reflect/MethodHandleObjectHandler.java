@@ -0,0 +1,19 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.util.Wrapper;
+
+import java.lang.reflect.AccessibleObject;
+import java.util.List;
+
+/**
+ * Same lookup rules and guards as the ReflectionObjectHandler but the found members
+ * are invoked through MethodHandles rather than Method.invoke and Field.get.
+ */
+public class MethodHandleObjectHandler extends ReflectionObjectHandler {
+  private static final Guard[] EMPTY_GUARDS = new Guard[0];
+
+  @Override
+  protected Wrapper createWrapper(int scopeIndex, Wrapper[] wrappers, List<? extends Guard> guard, AccessibleObject member, Object[] arguments) {
+    return new MethodHandleWrapper(scopeIndex, wrappers, guard.toArray(EMPTY_GUARDS), member, arguments, this);
+  }
+}
@@ -0,0 +1,77 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Wrapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates a callsite through a MethodHandle rather than Method.invoke or Field.get.
+ * The handle is adapted to (Object)Object once at creation so a call neither
+ * allocates an argument array nor wraps exceptions in InvocationTargetException.
+ * The scope is checked against the class of the member before the call, so that
+ * anything the member throws is reported as thrown by it.
+ */
+public class MethodHandleWrapper extends ReflectionWrapper {
+  private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+  protected final MethodHandle handle;
+  // The class the scope is cast to or null for static members
+  private final Class<?> receiver;
+
+  public MethodHandleWrapper(int scopeIndex, Wrapper[] wrappers, Guard[] guard, AccessibleObject method, Object[] arguments, ObjectHandler oh) {
+    super(scopeIndex, wrappers, guard, method, arguments, oh);
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle mh;
+      if (field == null) {
+        // The member has already been made accessible by the object handler
+        mh = lookup.unreflect(this.method);
+        if (arguments != null && arguments.length > 0) {
+          mh = MethodHandles.insertArguments(mh, 1, arguments);
+        }
+      } else {
+        mh = lookup.unreflectGetter(field);
+      }
+      if (Modifier.isStatic(((Member) method).getModifiers())) {
+        // Like Method.invoke, ignore the scope for static members
+        mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        receiver = null;
+      } else {
+        receiver = ((Member) method).getDeclaringClass();
+      }
+      handle = mh.asType(GETTER);
+    } catch (IllegalAccessException e) {
+      throw new MustacheException("Failed to create method handle for " + getTargetDescription(), e);
+    }
+  }
+
+  @Override
+  protected Object invoke(Object scope, List<Object> scopes) {
+    if (scope == null) return null;
+    if (receiver != null && !receiver.isInstance(scope)) {
+      // Method.invoke would throw an IllegalArgumentException
+      throw new MustacheException("Error accessing " + getTargetDescription() + " on " + elementToString(scope)
+          + ", scope: [" + scopesToString(scopes) + "]" + ", guards: " + Arrays.toString(guards));
+    }
+    try {
+      return (Object) handle.invokeExact(scope);
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new MustacheException("Error invoking " + getTargetDescription() + " on " + elementToString(scope), e);
+    }
+  }
+
+  public MethodHandle getHandle() {
+    return handle;
+  }
+}
@@ -5,16 +5,23 @@ import com.github.mustachejava.Code;
 import com.github.mustachejava.ObjectHandler;
 import com.github.mustachejava.TemplateContext;
 import com.github.mustachejava.reflect.guards.ClassGuard;
+import com.github.mustachejava.reflect.guards.CursorGuard;
 import com.github.mustachejava.reflect.guards.DepthGuard;
 import com.github.mustachejava.reflect.guards.DotGuard;
 import com.github.mustachejava.reflect.guards.MapGuard;
 import com.github.mustachejava.reflect.guards.NullGuard;
+import com.github.mustachejava.reflect.guards.ResultSetGuard;
+import com.github.mustachejava.reflect.guards.SchemaGuard;
 import com.github.mustachejava.reflect.guards.WrappedGuard;
+import com.github.mustachejava.util.Cursor;
 import com.github.mustachejava.util.GuardException;
+import com.github.mustachejava.util.SlotMap;
+import com.github.mustachejava.util.SlotSchema;
 import com.github.mustachejava.util.Wrapper;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Method;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -34,17 +41,69 @@ public class ReflectionObjectHandler extends BaseObjectHandler {
 
   protected static final Method MAP_METHOD;
 
+  /**
+   * Scope indexes below zero count back from the innermost scope, -1 being the
+   * innermost, so that a wrapper doesn't depend on how deep the scopes are.
+   *
+   * @param scopeIndex the absolute or relative index of a scope
+   * @param size the number of scopes
+   * @return the absolute index, which may be out of range
+   */
+  public static int scopeIndex(int scopeIndex, int size) {
+    return scopeIndex < 0 ? size + scopeIndex : scopeIndex;
+  }
+
   public static Object unwrap(ObjectHandler oh, int scopeIndex, Wrapper[] wrappers, List<Object> scopes) throws GuardException {
-    Object scope = oh.coerce(scopes.get(scopeIndex));
+    int index = scopeIndex(scopeIndex, scopes.size());
+    if (index < 0) throw GuardedWrapper.guardException;
+    Object scope = oh.coerce(scopes.get(index));
     // The value may be buried by . notation
     if (wrappers != null) {
       for (Wrapper wrapper : wrappers) {
-        scope = oh.coerce(wrapper.call(ObjectHandler.makeList(scope)));
+        if (wrapper instanceof ReflectionWrapper) {
+          scope = ((ReflectionWrapper) wrapper).tryCallScope(scope);
+          if (scope == Wrapper.GUARD_FAILED) throw GuardedWrapper.guardException;
+          scope = oh.coerce(scope);
+        } else {
+          scope = oh.coerce(wrapper.call(ObjectHandler.makeList(scope)));
+        }
       }
     }
     return scope;
   }
 
+  /**
+   * Same as unwrap but returns Wrapper.GUARD_FAILED rather than throwing a GuardException.
+   *
+   * @param oh the object handler used to coerce values
+   * @param scopeIndex the index of the scope to start from
+   * @param wrappers the wrappers for the dot notation
+   * @param scopes the current scopes
+   * @return the unwrapped scope or GUARD_FAILED
+   */
+  public static Object tryUnwrap(ObjectHandler oh, int scopeIndex, Wrapper[] wrappers, List<Object> scopes) {
+    int index = scopeIndex(scopeIndex, scopes.size());
+    if (index < 0 || index >= scopes.size()) return Wrapper.GUARD_FAILED;
+    Object scope = oh.coerce(scopes.get(index));
+    // The value may be buried by . notation
+    if (wrappers != null) {
+      for (Wrapper wrapper : wrappers) {
+        scope = tryCallScope(wrapper, scope);
+        if (scope == Wrapper.GUARD_FAILED) return scope;
+        scope = oh.coerce(scope);
+      }
+    }
+    return scope;
+  }
+
+  // Each step of dot notation is evaluated against a single scope
+  private static Object tryCallScope(Wrapper wrapper, Object scope) {
+    if (wrapper instanceof ReflectionWrapper) {
+      return ((ReflectionWrapper) wrapper).tryCallScope(scope);
+    }
+    return wrapper.tryCall(ObjectHandler.makeList(scope));
+  }
+
   static {
     try {
       MAP_METHOD = Map.class.getMethod("get", Object.class);
@@ -59,12 +118,13 @@ public class ReflectionObjectHandler extends BaseObjectHandler {
     Wrapper wrapper = null;
     final int length = scopes.size();
     List<Guard> guards = new ArrayList<>(length);
-    // Simple guard to break if the number of scopes at this call site have changed
-    guards.add(createDepthGuard(length));
     NEXT:
-    for (int i = length - 1; i >= 0; i--) {
-      Object scope = scopes.get(i);
+    for (int j = length - 1; j >= 0; j--) {
+      Object scope = scopes.get(j);
       if (scope == null) continue;
+      // Scopes are addressed from the innermost one so that the wrapper
+      // can be used wherever the same scopes are on top, at any depth
+      int i = j - length;
       // Make sure that the current scope is the same class
       guards.add(createClassGuard(i, scope));
       List<Wrapper> wrappers = null;
@@ -89,12 +149,12 @@ public class ReflectionObjectHandler extends BaseObjectHandler {
         if (wrapper != null) {
           // We need to dig into a scope when dot notation shows up
           wrappers.add(wrapper);
-          try {
-            // Pull out the next level from the coerced scope
-            scope = coerce(wrapper.call(ObjectHandler.makeList(coerce(scope))));
-          } catch (GuardException e) {
-            throw new AssertionError(e);
+          // Pull out the next level from the coerced scope
+          scope = tryCallScope(wrapper, coerce(scope));
+          if (scope == Wrapper.GUARD_FAILED) {
+            throw new AssertionError("Guard failed on a new wrapper: " + wrapper);
           }
+          scope = coerce(scope);
         } else {
           // Failed to find a wrapper for the next dot
           guards.add(createWrappedGuard(i, wrappers, wrapperGuard));
@@ -107,23 +167,23 @@ public class ReflectionObjectHandler extends BaseObjectHandler {
           break;
         }
       }
-      if (wrappers != null) {
-        guards.add(createWrappedGuard(i, wrappers, singletonList(new ClassGuard(0, scope))));
-      }
-      Wrapper[] foundWrappers = wrappers == null ? null : wrappers.toArray(EMPTY_WRAPPERS);
-      wrapper = findWrapper(i, foundWrappers, guards, scope, subname);
+      // Without dot notation the name has already been looked for in this scope
+      if (wrappers == null) continue;
+      guards.add(createWrappedGuard(i, wrappers, singletonList(new ClassGuard(0, scope))));
+      wrapper = findWrapper(i, wrappers.toArray(EMPTY_WRAPPERS), guards, scope, subname);
       if (wrapper == null) {
         // If we have found any wrappers we need to keep them rather than return a missing wrapper
         // otherwise it will continue you on to other scopes and break context precedence
-        if (wrappers != null) {
-          wrapper = createMissingWrapper(subname, guards);
-          break;
-        }
-      } else {
-        break;
+        wrapper = createMissingWrapper(subname, guards);
       }
+      break;
     }
-    return wrapper == null ? createMissingWrapper(name, guards) : wrapper;
+    if (wrapper == null) {
+      // Every scope was searched so more of them could change the outcome
+      guards.add(0, createDepthGuard(length));
+      return createMissingWrapper(name, guards);
+    }
+    return wrapper;
   }
 
   /**
@@ -139,24 +199,88 @@ public class ReflectionObjectHandler extends BaseObjectHandler {
   protected Wrapper findWrapper(final int scopeIndex, Wrapper[] wrappers, List<Guard> guards, Object scope, final String name) {
     scope = coerce(scope);
     if (scope == null) return null;
-    // If the scope is a map, then we use the get() method
-    // to see if it contains a value named name.
-    if (scope instanceof Map) {
+    // The schema of a slot map decides where the name is, once for every map of the schema
+    if (scope instanceof SlotMap) {
+      SlotMap slotMap = (SlotMap) scope;
+      int slot = slotMap.getSchema().slot(name);
+      if (slot != -1 && slotMap.has(slot)) {
+        return createSlotWrapper(scopeIndex, wrappers, guards, name, slotMap.getSchema(), slot);
+      }
+      guards.add(createSchemaGuard(scopeIndex, wrappers, slotMap.getSchema(), slot));
+      if (!areMethodsAccessible(slotMap)) {
+        return null;
+      }
+    } else if (scope instanceof Map) {
+      // If the scope is a map, then we use the get() method
+      // to see if it contains a value named name.
       Map map = (Map) scope;
       if (map.containsKey(name)) {
-        guards.add(createMapGuard(scopeIndex, wrappers, name, true));
-        return createWrapper(scopeIndex, wrappers, guards, MAP_METHOD, new Object[]{name});
+        // The wrapper guards that the name is still in the map when it looks it up
+        return createMapWrapper(scopeIndex, wrappers, guards, name);
       } else {
         guards.add(createMapGuard(scopeIndex, wrappers, name, false));
         if (!areMethodsAccessible(map)) {
           return null;
         }
       }
+    } else if (scope instanceof ResultSet) {
+      // Names are the labels of the columns of the current row
+      ResultSet resultSet = (ResultSet) scope;
+      int column = ResultSetWrapper.findColumn(resultSet, name);
+      if (column != -1) {
+        return createResultSetWrapper(scopeIndex, wrappers, guards, name, column);
+      }
+      guards.add(createResultSetGuard(scopeIndex, wrappers, name));
+      // The methods of a result set would move its cursor
+      return null;
+    } else if (scope instanceof Cursor) {
+      // The schema of a cursor decides which column the name is, once for every cursor of the schema
+      SlotSchema schema = ((Cursor) scope).getSchema();
+      int column = schema.slot(name);
+      if (column != -1) {
+        return createCursorWrapper(scopeIndex, wrappers, guards, name, schema, column);
+      }
+      guards.add(createCursorGuard(scopeIndex, wrappers, schema));
+      // The methods of a cursor would move it
+      return null;
+    }
+    ViewAccessor accessor = findAccessor(scope.getClass(), name);
+    if (accessor != null) {
+      return createWrapper(scopeIndex, wrappers, guards, name, accessor);
     }
     AccessibleObject member = findMember(scope.getClass(), name);
     return member == null ? null : createWrapper(scopeIndex, wrappers, guards, member, new Object[0]);
   }
 
+  /**
+   * Check whether a scope would stop a lookup of the name, either because it has
+   * the name or because it starts the dot notation of the name.
+   *
+   * @param scope the scope to check
+   * @param name the name to find
+   * @return true if the lookup of the name doesn't go past this scope
+   */
+  public boolean provides(Object scope, String name) {
+    List<Guard> guards = new ArrayList<>(2);
+    if (findWrapper(0, null, guards, scope, name) != null) return true;
+    int dotIndex = name.indexOf('.');
+    return dotIndex != -1 && findWrapper(0, null, guards, scope, name.substring(0, dotIndex)) != null;
+  }
+
+  /**
+   * Whether the names a scope has are decided by its class, so that a scope without a
+   * name means no other scope of the class has it. Maps are asked for their keys first
+   * and then only their methods depend on the class. Result sets and cursors have the
+   * names of their columns. Handlers whose scopes have names of their own, like the
+   * fields of a document, need to return false for them.
+   *
+   * @param scopeClass the class of a coerced scope
+   * @return true if every scope of the class has the same names
+   */
+  public boolean namesDependOnClass(Class<?> scopeClass) {
+    return !ResultSet.class.isAssignableFrom(scopeClass) && !Cursor.class.isAssignableFrom(scopeClass);
+  }
+
   // Factories
 
   protected MissingWrapper createMissingWrapper(String name, List<Guard> guards) {
@@ -183,6 +307,18 @@ public class ReflectionObjectHandler extends BaseObjectHandler {
     return new ClassGuard(i, scope);
   }
 
+  protected SchemaGuard createSchemaGuard(int scopeIndex, Wrapper[] wrappers, SlotSchema schema, int slot) {
+    return new SchemaGuard(this, scopeIndex, wrappers, schema, slot);
+  }
+
+  protected CursorGuard createCursorGuard(int scopeIndex, Wrapper[] wrappers, SlotSchema schema) {
+    return new CursorGuard(this, scopeIndex, wrappers, schema);
+  }
+
+  protected ResultSetGuard createResultSetGuard(int scopeIndex, Wrapper[] wrappers, String name) {
+    return new ResultSetGuard(this, scopeIndex, name, wrappers);
+  }
+
   protected MapGuard createMapGuard(int scopeIndex, Wrapper[] wrappers, String name, boolean contains) {
     return new MapGuard(this, scopeIndex, name, contains, wrappers);
   }
@@ -192,6 +328,26 @@ public class ReflectionObjectHandler extends BaseObjectHandler {
     return new ReflectionWrapper(scopeIndex, wrappers, guard.toArray(EMPTY_GUARDS), member, arguments, this);
   }
 
+  protected Wrapper createMapWrapper(int scopeIndex, Wrapper[] wrappers, List<? extends Guard> guard, String name) {
+    return new MapWrapper(scopeIndex, wrappers, guard.toArray(EMPTY_GUARDS), name, this);
+  }
+
+  protected Wrapper createSlotWrapper(int scopeIndex, Wrapper[] wrappers, List<? extends Guard> guard, String name, SlotSchema schema, int slot) {
+    return new SlotWrapper(scopeIndex, wrappers, guard.toArray(EMPTY_GUARDS), name, schema, slot, this);
+  }
+
+  protected Wrapper createCursorWrapper(int scopeIndex, Wrapper[] wrappers, List<? extends Guard> guard, String name, SlotSchema schema, int column) {
+    return new CursorWrapper(scopeIndex, wrappers, guard.toArray(EMPTY_GUARDS), name, schema, column, this);
+  }
+
+  protected Wrapper createResultSetWrapper(int scopeIndex, Wrapper[] wrappers, List<? extends Guard> guard, String name, int column) {
+    return new ResultSetWrapper(scopeIndex, wrappers, guard.toArray(EMPTY_GUARDS), name, column, this);
+  }
+
+  protected Wrapper createWrapper(int scopeIndex, Wrapper[] wrappers, List<? extends Guard> guard, String name, ViewAccessor accessor) {
+    return new AccessorWrapper(scopeIndex, wrappers, guard.toArray(EMPTY_GUARDS), name, accessor, this);
+  }
+
   @Override
   public Binding createBinding(String name, TemplateContext tc, Code code) {
     return new GuardedBinding(this, name, tc, code);
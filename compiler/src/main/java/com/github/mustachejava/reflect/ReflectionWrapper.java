@@ -44,16 +44,83 @@ public class ReflectionWrapper extends GuardedWrapper {
 
   protected Object unwrap(List<Object> scopes) {
     if (wrappers == null || wrappers.length == 0) {
-      return scopes.get(scopeIndex);
+      return scopes.get(ReflectionObjectHandler.scopeIndex(scopeIndex, scopes.size()));
     } else {
       return ReflectionObjectHandler.unwrap(oh, scopeIndex, wrappers, scopes);
     }
   }
 
+  /**
+   * Same as unwrap but returns GUARD_FAILED rather than throwing.
+   *
+   * @param scopes the current scopes
+   * @return the scope this wrapper is called on or GUARD_FAILED
+   */
+  protected Object tryUnwrap(List<Object> scopes) {
+    if (wrappers == null || wrappers.length == 0) {
+      return scopes.get(ReflectionObjectHandler.scopeIndex(scopeIndex, scopes.size()));
+    } else {
+      return ReflectionObjectHandler.tryUnwrap(oh, scopeIndex, wrappers, scopes);
+    }
+  }
+
   @Override
   public Object call(List<Object> scopes) throws GuardException {
     guardCall(scopes);
-    Object scope = oh.coerce(unwrap(scopes));
+    Object value = read(oh.coerce(unwrap(scopes)));
+    if (value == GUARD_FAILED) throw guardException;
+    return value;
+  }
+
+  @Override
+  public Object tryCall(List<Object> scopes) {
+    if (legacyCall) {
+      return super.tryCall(scopes);
+    }
+    if (!guard(scopes)) return GUARD_FAILED;
+    Object scope = tryUnwrap(scopes);
+    if (scope == GUARD_FAILED) return GUARD_FAILED;
+    return read(oh.coerce(scope));
+  }
+
+  /**
+   * Call this wrapper with a single scope, as it is called for each step of dot
+   * notation, without allocating a list for it. Wrappers that look beyond the
+   * first scope go through tryCall.
+   *
+   * @param scope the only scope
+   * @return the value or GUARD_FAILED
+   */
+  public Object tryCallScope(Object scope) {
+    if (legacyCall || (scopeIndex != 0 && scopeIndex != -1) || (wrappers != null && wrappers.length != 0)) {
+      return tryCall(ObjectHandler.makeList(scope));
+    }
+    for (Guard guard : guards) {
+      if (!guard.applyTo(scope)) return GUARD_FAILED;
+    }
+    return read(oh.coerce(scope));
+  }
+
+  /**
+   * Read the value from the scope after the guards have passed. Wrappers whose
+   * lookup also checks that the scope still has the name override this and fail
+   * the same way a guard would have.
+   *
+   * @param scope the unwrapped and coerced scope
+   * @return the value or GUARD_FAILED
+   */
+  protected Object read(Object scope) {
+    return invoke(scope, null);
+  }
+
+  /**
+   * Get the value of the member on the scope after the guards have passed.
+   *
+   * @param scope the unwrapped and coerced scope
+   * @param scopes the current scopes, used for error messages
+   * @return the value of the field or method
+   */
+  protected Object invoke(Object scope, List<Object> scopes) {
     try {
       if (scope == null) return null;
       if (method == null) {
@@ -63,7 +130,7 @@ public class ReflectionWrapper extends GuardedWrapper {
       }
     } catch (IllegalArgumentException | IllegalAccessException e) {
       throw new MustacheException("Error accessing " + getTargetDescription() + " on " + elementToString(scope)
-          + ", scope: [" + elementsToString(scopes, scopeIndex) + "]" + ", guards: " + Arrays.toString(guards), e);
+          + ", scope: [" + scopesToString(scopes) + "]" + ", guards: " + Arrays.toString(guards), e);
     } catch (InvocationTargetException e) {
       throw new MustacheException("Error invoking " + getTargetDescription() + " on " + elementToString(scope), e.getTargetException());
     } catch (Exception e) {
@@ -103,14 +170,19 @@ public class ReflectionWrapper extends GuardedWrapper {
     return wrappers;
   }
 
-  private String getTargetDescription() {
+  protected String getTargetDescription() {
     final List<Object> argList = arguments == null ? Collections.emptyList() : Arrays.asList(arguments);
     return method == null
         ? "field " + field.getDeclaringClass() + "." + field.getName()
         : "method " + method.getDeclaringClass().getCanonicalName() + "." + method.getName() + "(" + elementsToString(argList, method.getParameterTypes().length - 1) + ")";
   }
   
-  private String elementsToString(List<Object> objects, int showUpTo) {
+  // The scopes up to the one this wrapper is called on
+  protected String scopesToString(List<Object> scopes) {
+    return scopes == null ? "" : elementsToString(scopes, ReflectionObjectHandler.scopeIndex(scopeIndex, scopes.size()));
+  }
+
+  protected String elementsToString(List<Object> objects, int showUpTo) {
     if (objects == null || objects.size() == 0 || showUpTo < 0) {
       return "";
     }
@@ -123,7 +195,7 @@ public class ReflectionWrapper extends GuardedWrapper {
     return sb.toString();
   }
 
-  private String elementToString(Object object) {
+  protected String elementToString(Object object) {
     return object == null ? null : object.getClass().getCanonicalName() + '@' + object.hashCode();
   }
   
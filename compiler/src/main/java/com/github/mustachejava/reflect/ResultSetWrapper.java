@@ -0,0 +1,111 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Wrapper;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Reads a column of the current row of a ResultSet scope. The label was resolved to
+ * the index of the column when the wrapper was created and is checked again only
+ * when the wrapper sees another result set, so reading a row doesn't allocate.
+ */
+public class ResultSetWrapper extends ReflectionWrapper {
+  private static final Method GET_OBJECT;
+  private static final WeakReference<ResultSet> NONE = new WeakReference<>(null);
+
+  static {
+    try {
+      GET_OBJECT = ResultSet.class.getMethod("getObject", int.class);
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  protected final String name;
+  protected final int column;
+  // The last result set that had the column at the index, benign race
+  private WeakReference<ResultSet> checked = NONE;
+
+  public ResultSetWrapper(int scopeIndex, Wrapper[] wrappers, Guard[] guard, String name, int column, ObjectHandler oh) {
+    super(scopeIndex, wrappers, guard, GET_OBJECT, new Object[]{column}, oh);
+    this.name = name;
+    this.column = column;
+  }
+
+  /**
+   * Find a column by its label the way ResultSet.findColumn() does, but without
+   * throwing when the result set doesn't have it.
+   *
+   * @param resultSet the result set
+   * @param label the label of the column, case insensitive
+   * @return the index of the first column with the label or -1
+   */
+  public static int findColumn(ResultSet resultSet, String label) {
+    try {
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      int count = metaData.getColumnCount();
+      for (int i = 1; i <= count; i++) {
+        if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+          return i;
+        }
+      }
+      return -1;
+    } catch (SQLException e) {
+      throw new MustacheException("Failed to read the columns of the result set", e);
+    }
+  }
+
+  @Override
+  protected Object read(Object scope) {
+    if (scope instanceof ResultSet) {
+      ResultSet resultSet = (ResultSet) scope;
+      if (checked.get() != resultSet) {
+        if (findColumn(resultSet, name) != column) return GUARD_FAILED;
+        checked = new WeakReference<>(resultSet);
+      }
+      return invoke(resultSet, null);
+    }
+    return GUARD_FAILED;
+  }
+
+  @Override
+  protected Object invoke(Object scope, List<Object> scopes) {
+    if (scope == null) return null;
+    try {
+      return ((ResultSet) scope).getObject(column);
+    } catch (SQLException e) {
+      throw new MustacheException("Failed to get column " + name, e);
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getColumn() {
+    return column;
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() * 43 + name.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof ResultSetWrapper && name.equals(((ResultSetWrapper) o).name)
+            && column == ((ResultSetWrapper) o).column && super.equals(o);
+  }
+
+  @Override
+  public String toString() {
+    return "[ResultSetWrapper: " + name + " " + column + "]";
+  }
+}
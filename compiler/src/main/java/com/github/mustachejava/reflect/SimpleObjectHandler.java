@@ -30,10 +30,17 @@ public class SimpleObjectHandler extends BaseObjectHandler {
     // Special case Maps
     if (scope instanceof Map) {
       Map map = (Map) scope;
-      if (map.containsKey(name)) {
-        return map.get(name);
-      } else if (!areMethodsAccessible(map)) {
-        return NOT_FOUND;
+      Object value = MapWrapper.get(map, name, NOT_FOUND);
+      if (value != NOT_FOUND || !areMethodsAccessible(map)) {
+        return value;
+      }
+    }
+    ViewAccessor accessor = findAccessor(scope.getClass(), name);
+    if (accessor != null) {
+      try {
+        return accessor.get(scope);
+      } catch (Exception e) {
+        throw new MustacheException("Failed to get " + name + " from " + scope.getClass(), e);
       }
     }
     // Check to see if there is a method or field that matches
@@ -83,37 +90,14 @@ public class SimpleObjectHandler extends BaseObjectHandler {
     };
   }
 
-  // Used for the member cache
-  private static class WrapperKey {
-    private final Class aClass;
-    private final String name;
-    private final int hashcode;
-
-    WrapperKey(Class aClass, String name) {
-      this.aClass = aClass;
-      this.name = name;
-      hashcode = aClass.hashCode() + 43 * name.hashCode();
-    }
-
-    @Override
-    public int hashCode() {
-      return hashcode;
-    }
-
+  // Cache of classes + name => field mappings, the classes aren't kept alive by it
+  // By keeping this non-static you can release the cache by releasing the handler
+  private final ClassValue<Map<String, AccessibleObject>> cache = new ClassValue<Map<String, AccessibleObject>>() {
     @Override
-    public boolean equals(Object obj) {
-      if (obj instanceof WrapperKey) {
-        WrapperKey oKey = (WrapperKey) obj;
-        return aClass.equals(oKey.aClass) && name.equals(oKey.name);
-      } else {
-        return false;
-      }
+    protected Map<String, AccessibleObject> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
     }
-  }
-
-  // Cache of classes + name => field mappings
-  // By keeping this non-static you can release the cache by releasing the handler
-  private Map<WrapperKey, AccessibleObject> cache = new ConcurrentHashMap<>();
+  };
 
   // Used to cache misses
   private static AccessibleObject NONE;
@@ -128,11 +112,11 @@ public class SimpleObjectHandler extends BaseObjectHandler {
 
   // Use the cache to find lookup members faster
   private AccessibleObject lookup(Class sClass, String name) {
-    WrapperKey key = new WrapperKey(sClass, name);
-    AccessibleObject ao = cache.get(key);
+    Map<String, AccessibleObject> members = cache.get(sClass);
+    AccessibleObject ao = members.get(name);
     if (ao == null) {
       ao = findMember(sClass, name);
-      cache.put(key, ao == null ? NONE : ao);
+      members.put(name, ao == null ? NONE : ao);
     }
     return ao == NONE ? null : ao;
   }
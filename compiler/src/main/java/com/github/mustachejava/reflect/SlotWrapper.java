@@ -0,0 +1,65 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.SlotMap;
+import com.github.mustachejava.util.SlotSchema;
+import com.github.mustachejava.util.Wrapper;
+
+import java.util.List;
+
+/**
+ * Reads a slot of a SlotMap scope. The name was resolved to the slot when the wrapper
+ * was created, a scope with another schema or without a value in the slot fails the
+ * wrapper.
+ */
+public class SlotWrapper extends ReflectionWrapper {
+  protected final String name;
+  protected final SlotSchema schema;
+  protected final int slot;
+
+  public SlotWrapper(int scopeIndex, Wrapper[] wrappers, Guard[] guard, String name, SlotSchema schema, int slot, ObjectHandler oh) {
+    super(scopeIndex, wrappers, guard, ReflectionObjectHandler.MAP_METHOD, new Object[]{name}, oh);
+    this.name = name;
+    this.schema = schema;
+    this.slot = slot;
+  }
+
+  @Override
+  protected Object read(Object scope) {
+    if (scope instanceof SlotMap) {
+      SlotMap map = (SlotMap) scope;
+      if (map.getSchema() == schema) {
+        return map.getSlot(slot, GUARD_FAILED);
+      }
+    }
+    return GUARD_FAILED;
+  }
+
+  @Override
+  protected Object invoke(Object scope, List<Object> scopes) {
+    return scope == null ? null : ((SlotMap) scope).getSlot(slot, null);
+  }
+
+  public int getSlot() {
+    return slot;
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() * 43 + slot;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof SlotWrapper) {
+      SlotWrapper other = (SlotWrapper) o;
+      return schema == other.schema && slot == other.slot && super.equals(o);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "[SlotWrapper: " + name + " " + slot + " " + schema + "]";
+  }
+}
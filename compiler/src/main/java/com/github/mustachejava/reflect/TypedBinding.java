@@ -0,0 +1,224 @@
+package com.github.mustachejava.reflect;
+
+import com.github.mustachejava.Binding;
+import com.github.mustachejava.Code;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.TemplateContext;
+import com.github.mustachejava.util.Cursor;
+import com.github.mustachejava.util.Wrapper;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A binding resolved against the declared classes of the scopes rather than their
+ * values, the same shapes that TypeCheckingHandler checks. The field or method is
+ * called directly. Scopes whose class is final aren't checked at all. Other classes
+ * are checked to be exactly the declared class, as a subclass could resolve the name
+ * differently. Anything unexpected, including a different number of scopes, goes
+ * to the binding the site had before.
+ */
+public class TypedBinding implements Binding {
+  private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
+  private static final ClassValue<Boolean> standardLookup = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> c) {
+      return BaseObjectHandler.declaringClass(c, "find", String.class, List.class) == ReflectionObjectHandler.class
+              && BaseObjectHandler.declaringClass(c, "findWrapper", int.class, Wrapper[].class, List.class, Object.class, String.class) == ReflectionObjectHandler.class
+              && BaseObjectHandler.declaringClass(c, "createBinding", String.class, TemplateContext.class, Code.class) == ReflectionObjectHandler.class
+              && BaseObjectHandler.declaringClass(c, "coerce", Object.class) == AbstractObjectHandler.class;
+    }
+  };
+
+  private final ObjectHandler oh;
+  private final Binding fallback;
+  private final int depth;
+  private final int scopeIndex;
+  // Scopes between the innermost one and the one with the name whose classes aren't final
+  private final int[] checkedScopes;
+  private final Class<?>[] checkedClasses;
+  // One step per part of dot notation
+  private final ReflectionWrapper[] steps;
+  private final Class<?>[] stepClasses;
+  private final Type type;
+
+  private TypedBinding(ObjectHandler oh, Binding fallback, int depth, int scopeIndex, List<Integer> checkedScopes,
+                       List<Class<?>> checkedClasses, ReflectionWrapper[] steps, Class<?>[] stepClasses, Type type) {
+    this.oh = oh;
+    this.fallback = fallback;
+    this.depth = depth;
+    this.scopeIndex = scopeIndex;
+    this.checkedScopes = new int[checkedScopes.size()];
+    for (int i = 0; i < this.checkedScopes.length; i++) {
+      this.checkedScopes[i] = checkedScopes.get(i);
+    }
+    this.checkedClasses = checkedClasses.toArray(new Class<?>[0]);
+    this.steps = steps;
+    this.stepClasses = stepClasses;
+    this.type = type;
+  }
+
+  /**
+   * @param oh the object handler of the template
+   * @return true if the handler looks up names the way this binding does
+   */
+  public static boolean supports(ObjectHandler oh) {
+    return oh instanceof ReflectionObjectHandler && standardLookup.get(oh.getClass());
+  }
+
+  /**
+   * Resolve a name against the classes of the scopes, following the same rules as
+   * ReflectionObjectHandler.find().
+   *
+   * @param oh the object handler of the template
+   * @param name the name to resolve
+   * @param fallback the binding used when the scopes aren't what was declared
+   * @param scopeTypes the classes of the scopes, outermost first, null if unknown
+   * @return the binding or null if the name can't be resolved ahead of time
+   */
+  public static TypedBinding create(ReflectionObjectHandler oh, String name, Binding fallback, List<Class<?>> scopeTypes) {
+    if (!supports(oh)) return null;
+    int length = scopeTypes.size();
+    List<Integer> checkedScopes = new ArrayList<>();
+    List<Class<?>> checkedClasses = new ArrayList<>();
+    NEXT:
+    for (int i = length - 1; i >= 0; i--) {
+      Class<?> scopeType = scopeTypes.get(i);
+      if (!isResolvable(scopeType)) return null;
+      if (!Modifier.isFinal(scopeType.getModifiers())) {
+        checkedScopes.add(i);
+        checkedClasses.add(scopeType);
+      }
+      List<AccessibleObject> members = new ArrayList<>();
+      List<Class<?>> classes = new ArrayList<>();
+      classes.add(scopeType);
+      AccessibleObject member = oh.findMember(scopeType, name);
+      if (member == null) {
+        if (name.indexOf('.') == -1) continue;
+        // Walk the dot notation through the declared types
+        Class<?> current = scopeType;
+        String subname = name;
+        int dotIndex;
+        while ((dotIndex = subname.indexOf('.')) != -1) {
+          member = oh.findMember(current, subname.substring(0, dotIndex));
+          if (member == null) continue NEXT;
+          subname = subname.substring(dotIndex + 1);
+          members.add(member);
+          current = rawType(coercedType(memberType(member)));
+          if (!isResolvable(current)) return null;
+          classes.add(current);
+        }
+        member = oh.findMember(current, subname);
+        // Always missing, leave it to the dynamic lookup
+        if (member == null) return null;
+      }
+      members.add(member);
+      ReflectionWrapper[] steps = new ReflectionWrapper[members.size()];
+      Class<?>[] stepClasses = new Class<?>[members.size()];
+      for (int j = 0; j < steps.length; j++) {
+        Wrapper wrapper = oh.createWrapper(0, null, Collections.emptyList(), members.get(j), EMPTY_ARGUMENTS);
+        if (!(wrapper instanceof ReflectionWrapper)) return null;
+        steps[j] = (ReflectionWrapper) wrapper;
+        Class<?> stepClass = classes.get(j);
+        stepClasses[j] = j == 0 || Modifier.isFinal(stepClass.getModifiers()) ? null : stepClass;
+      }
+      return new TypedBinding(oh, fallback, length, i, checkedScopes, checkedClasses, steps, stepClasses, memberType(member));
+    }
+    return null;
+  }
+
+  @Override
+  public Object get(List<Object> scopes) {
+    if (scopes == null || scopes.size() != depth) return fallback.get(scopes);
+    for (int i = 0; i < checkedScopes.length; i++) {
+      Object scope = scopes.get(checkedScopes[i]);
+      if (scope == null || scope.getClass() != checkedClasses[i]) return fallback.get(scopes);
+    }
+    Object value = oh.coerce(scopes.get(scopeIndex));
+    if (value == null) return fallback.get(scopes);
+    for (int i = 0; i < steps.length; i++) {
+      if (i > 0) {
+        value = oh.coerce(value);
+        if (value == null) return null;
+        if (stepClasses[i] != null && value.getClass() != stepClasses[i]) return fallback.get(scopes);
+      }
+      value = steps[i].invoke(value, scopes);
+    }
+    return oh.coerce(value);
+  }
+
+  /**
+   * @return the declared type of the value
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @return the class of the scope a section pushes for each element of the value or null if unknown
+   */
+  public Class<?> getElementType() {
+    Type valueType = coercedType(type);
+    Class<?> raw = rawType(valueType);
+    if (raw == null) return null;
+    if (raw.isArray()) return boxed(raw.getComponentType());
+    if (Iterable.class.isAssignableFrom(raw) || Iterator.class.isAssignableFrom(raw)) {
+      // Only trust the type argument of the standard collections
+      if (valueType instanceof ParameterizedType && raw.getName().startsWith("java.util.")) {
+        Type[] arguments = ((ParameterizedType) valueType).getActualTypeArguments();
+        return arguments.length == 1 ? rawType(coercedType(arguments[0])) : null;
+      }
+      return null;
+    }
+    return raw;
+  }
+
+  private static boolean isResolvable(Class<?> type) {
+    return type != null && type != Object.class && !type.isInterface() && !type.isArray() && !type.isPrimitive()
+            && !Modifier.isAbstract(type.getModifiers()) && !Map.class.isAssignableFrom(type)
+            && !ResultSet.class.isAssignableFrom(type) && !Cursor.class.isAssignableFrom(type);
+  }
+
+  private static Type memberType(AccessibleObject member) {
+    return member instanceof Field ? ((Field) member).getGenericType() : ((Method) member).getGenericReturnType();
+  }
+
+  // Values are coerced so an Optional is its contents
+  private static Type coercedType(Type type) {
+    if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == Optional.class) {
+      return coercedType(((ParameterizedType) type).getActualTypeArguments()[0]);
+    }
+    return type == Optional.class ? null : type;
+  }
+
+  private static Class<?> rawType(Type type) {
+    if (type instanceof Class) return boxed((Class<?>) type);
+    if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+    return null;
+  }
+
+  private static Class<?> boxed(Class<?> type) {
+    if (!type.isPrimitive()) return type;
+    if (type == int.class) return Integer.class;
+    if (type == long.class) return Long.class;
+    if (type == double.class) return Double.class;
+    if (type == boolean.class) return Boolean.class;
+    if (type == char.class) return Character.class;
+    if (type == float.class) return Float.class;
+    if (type == short.class) return Short.class;
+    if (type == byte.class) return Byte.class;
+    return Void.class;
+  }
+}
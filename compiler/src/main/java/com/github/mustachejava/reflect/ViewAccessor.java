@@ -0,0 +1,9 @@
+package com.github.mustachejava.reflect;
+
+/**
+ * Gets the value of a name from a scope without reflection. Generated for
+ * classes annotated with MustacheView.
+ */
+public interface ViewAccessor {
+  Object get(Object scope) throws Exception;
+}
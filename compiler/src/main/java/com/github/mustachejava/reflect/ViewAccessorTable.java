@@ -0,0 +1,18 @@
+package com.github.mustachejava.reflect;
+
+/**
+ * The accessors of a class annotated with MustacheView. Tables are generated by
+ * the annotation processor and registered as services so ViewAccessors can find them.
+ */
+public interface ViewAccessorTable {
+  /**
+   * @return the class whose members the table accesses
+   */
+  Class<?> getViewClass();
+
+  /**
+   * @param name the name as it appears in a template
+   * @return the accessor for the member the name resolves to or null if it has to be found by reflection
+   */
+  ViewAccessor getAccessor(String name);
+}
@@ -0,0 +1,92 @@
+package com.github.mustachejava.reflect;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+
+/**
+ * Finds the generated ViewAccessorTable of a class. The tables of a class loader
+ * are loaded with ServiceLoader once, the first time a class of the loader is seen,
+ * and the answer for each class is then kept for as long as the class is.
+ */
+public final class ViewAccessors {
+  // The tables registered with a class loader, by the class they access
+  private static final class Index {
+    final Map<Class<?>, ViewAccessorTable> tables = new HashMap<>();
+
+    Index(ClassLoader loader) {
+      Iterator<ViewAccessorTable> iterator = ServiceLoader.load(ViewAccessorTable.class, loader).iterator();
+      while (true) {
+        try {
+          if (!iterator.hasNext()) return;
+          ViewAccessorTable table = iterator.next();
+          tables.putIfAbsent(table.getViewClass(), table);
+        } catch (ServiceConfigurationError e) {
+          // A table that can't be loaded, its class falls back to reflection
+        }
+      }
+    }
+  }
+
+  private static final class Entry {
+    // Keeps the index of the loader alive while its classes are
+    final Index index;
+    final ViewAccessorTable table;
+
+    Entry(Index index, ViewAccessorTable table) {
+      this.index = index;
+      this.table = table;
+    }
+  }
+
+  private static final Entry NONE = new Entry(null, null);
+
+  // Weak both ways so that the tables don't keep their class loader alive
+  private static final Map<ClassLoader, WeakReference<Index>> indexes = new WeakHashMap<>();
+
+  private static final ClassValue<Entry> entries = new ClassValue<Entry>() {
+    @Override
+    protected Entry computeValue(Class<?> type) {
+      ClassLoader loader = type.getClassLoader();
+      // Classes of the platform never have a table
+      if (loader == null) return NONE;
+      Index index = index(loader);
+      return new Entry(index, index.tables.get(type));
+    }
+  };
+
+  private ViewAccessors() {
+  }
+
+  private static synchronized Index index(ClassLoader loader) {
+    WeakReference<Index> reference = indexes.get(loader);
+    Index index = reference == null ? null : reference.get();
+    if (index == null) {
+      index = new Index(loader);
+      indexes.put(loader, new WeakReference<>(index));
+    }
+    return index;
+  }
+
+  /**
+   * @param type the class of the scope
+   * @return the generated table for the class or null if it doesn't have one
+   */
+  public static ViewAccessorTable getTable(Class<?> type) {
+    return entries.get(type).table;
+  }
+
+  /**
+   * @param type the class of the scope
+   * @param name the name to find
+   * @return the generated accessor or null if the name has to be found by reflection
+   */
+  public static ViewAccessor find(Class<?> type, String name) {
+    ViewAccessorTable table = entries.get(type).table;
+    return table == null ? null : table.getAccessor(name);
+  }
+}
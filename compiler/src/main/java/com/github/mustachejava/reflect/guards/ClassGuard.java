@@ -1,6 +1,7 @@
 package com.github.mustachejava.reflect.guards;
 
 import com.github.mustachejava.reflect.Guard;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
 
 import java.util.List;
 import java.util.Objects;
@@ -23,14 +24,14 @@ public class ClassGuard implements Guard {
 
   @Override
   public int hashCode() {
-    return classGuard == null ? 0 : classGuard.hashCode();
+    return (classGuard == null ? 0 : classGuard.hashCode()) * 43 + scopeIndex;
   }
 
   @Override
   public boolean equals(Object o) {
     if (o instanceof ClassGuard) {
       ClassGuard other = (ClassGuard) o;
-      return Objects.equals(classGuard, other.classGuard);
+      return scopeIndex == other.scopeIndex && Objects.equals(classGuard, other.classGuard);
     } else {
       return false;
     }
@@ -38,11 +39,18 @@ public class ClassGuard implements Guard {
 
   @Override
   public boolean apply(List<Object> scopes) {
-    if (scopes == null || scopes.size() <= scopeIndex) return false;
-    Object scope = scopes.get(scopeIndex);
+    if (scopes == null) return false;
+    int index = ReflectionObjectHandler.scopeIndex(scopeIndex, scopes.size());
+    if (index < 0 || index >= scopes.size()) return false;
+    Object scope = scopes.get(index);
     return !(scope != null && classGuard != scope.getClass()) && !(scope == null && classGuard != null);
   }
 
+  @Override
+  public boolean applyTo(Object scope) {
+    return (scopeIndex == 0 || scopeIndex == -1) && (scope == null ? classGuard == null : classGuard == scope.getClass());
+  }
+
   public String toString() {
     return "[ClassGuard: " + scopeIndex + " " + classGuard.getName() + "]";
   }
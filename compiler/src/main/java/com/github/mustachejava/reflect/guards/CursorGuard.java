@@ -0,0 +1,28 @@
+package com.github.mustachejava.reflect.guards;
+
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.Cursor;
+import com.github.mustachejava.util.SlotSchema;
+import com.github.mustachejava.util.Wrapper;
+
+/**
+ * Guards that a Cursor scope doesn't have a column. Whether it does only depends on
+ * its schema, so the guard checks that the schema is the one without the column.
+ */
+public class CursorGuard extends ScopeGuard {
+  protected final SlotSchema schema;
+
+  public CursorGuard(ObjectHandler oh, int scopeIndex, Wrapper[] wrappers, SlotSchema schema) {
+    super(oh, scopeIndex, wrappers);
+    this.schema = schema;
+  }
+
+  @Override
+  protected boolean check(Object scope) {
+    return scope instanceof Cursor && ((Cursor) scope).getSchema() == schema;
+  }
+
+  public String toString() {
+    return "[CursorGuard: " + scopeIndex + " " + schema + "]";
+  }
+}
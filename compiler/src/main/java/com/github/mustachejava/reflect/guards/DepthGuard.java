@@ -33,6 +33,11 @@ public class DepthGuard implements Guard {
     return objects != null && length == objects.size();
   }
 
+  @Override
+  public boolean applyTo(Object scope) {
+    return length == 1;
+  }
+
   public String toString() {
     return "[DepthGuard: " + length + "]";
   }
@@ -38,6 +38,11 @@ public class DotGuard implements Guard {
     return true;
   }
 
+  @Override
+  public boolean applyTo(Object scope) {
+    return true;
+  }
+
   public String toString() {
     return "[DotGuard: " + lookup + " " + scopeIndex + " " + classGuard.getName() + "]";
   }
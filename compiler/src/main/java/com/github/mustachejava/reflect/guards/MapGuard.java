@@ -1,35 +1,25 @@
 package com.github.mustachejava.reflect.guards;
 
 import com.github.mustachejava.ObjectHandler;
-import com.github.mustachejava.reflect.Guard;
 import com.github.mustachejava.util.Wrapper;
 
-import java.util.List;
 import java.util.Map;
 
-import static com.github.mustachejava.reflect.ReflectionObjectHandler.unwrap;
-
 /**
  * Guards whether or not a name was present in the map.
  */
-public class MapGuard implements Guard {
-  protected final ObjectHandler oh;
-  protected final int scopeIndex;
+public class MapGuard extends ScopeGuard {
   protected final String name;
   protected final boolean contains;
-  protected final Wrapper[] wrappers;
 
   public MapGuard(ObjectHandler oh, int scopeIndex, String name, boolean contains, Wrapper[] wrappers) {
-    this.oh = oh;
-    this.scopeIndex = scopeIndex;
+    super(oh, scopeIndex, wrappers);
     this.name = name;
     this.contains = contains;
-    this.wrappers = wrappers;
   }
 
   @Override
-  public boolean apply(List<Object> objects) {
-    Object scope = unwrap(oh, scopeIndex, wrappers, objects);
+  protected boolean check(Object scope) {
     if (scope instanceof Map) {
       Map map = (Map) scope;
       if (contains) {
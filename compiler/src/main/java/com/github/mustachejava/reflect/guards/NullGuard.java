@@ -10,6 +10,11 @@ public class NullGuard implements Guard {
     return objects.get(0) == null;
   }
 
+  @Override
+  public boolean applyTo(Object scope) {
+    return scope == null;
+  }
+
   public String toString() {
     return "[NullGuard]";
   }
@@ -0,0 +1,41 @@
+package com.github.mustachejava.reflect.guards;
+
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.ResultSetWrapper;
+import com.github.mustachejava.util.Wrapper;
+
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+
+/**
+ * Guards that a ResultSet scope doesn't have a column with a label. The columns are
+ * only looked at when the guard sees another result set, rows of the same one pass.
+ */
+public class ResultSetGuard extends ScopeGuard {
+  private static final WeakReference<ResultSet> NONE = new WeakReference<>(null);
+
+  protected final String name;
+  // The last result set without the column, benign race
+  private WeakReference<ResultSet> checked = NONE;
+
+  public ResultSetGuard(ObjectHandler oh, int scopeIndex, String name, Wrapper[] wrappers) {
+    super(oh, scopeIndex, wrappers);
+    this.name = name;
+  }
+
+  @Override
+  protected boolean check(Object scope) {
+    if (scope instanceof ResultSet) {
+      ResultSet resultSet = (ResultSet) scope;
+      if (checked.get() == resultSet) return true;
+      if (ResultSetWrapper.findColumn(resultSet, name) != -1) return false;
+      checked = new WeakReference<>(resultSet);
+      return true;
+    }
+    return false;
+  }
+
+  public String toString() {
+    return "[ResultSetGuard: " + scopeIndex + " " + name + "]";
+  }
+}
@@ -0,0 +1,35 @@
+package com.github.mustachejava.reflect.guards;
+
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.util.SlotMap;
+import com.github.mustachejava.util.SlotSchema;
+import com.github.mustachejava.util.Wrapper;
+
+/**
+ * Guards that a SlotMap scope doesn't have a name. The schema decides whether the name
+ * can be there at all, if it has a slot for it the slot has to be empty.
+ */
+public class SchemaGuard extends ScopeGuard {
+  protected final SlotSchema schema;
+  // The slot of the name or -1 if the schema doesn't have it
+  protected final int slot;
+
+  public SchemaGuard(ObjectHandler oh, int scopeIndex, Wrapper[] wrappers, SlotSchema schema, int slot) {
+    super(oh, scopeIndex, wrappers);
+    this.schema = schema;
+    this.slot = slot;
+  }
+
+  @Override
+  protected boolean check(Object scope) {
+    if (scope instanceof SlotMap) {
+      SlotMap map = (SlotMap) scope;
+      return map.getSchema() == schema && (slot == -1 || !map.has(slot));
+    }
+    return false;
+  }
+
+  public String toString() {
+    return "[SchemaGuard: " + scopeIndex + " " + schema + " " + slot + "]";
+  }
+}
@@ -0,0 +1,44 @@
+package com.github.mustachejava.reflect.guards;
+
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.Guard;
+import com.github.mustachejava.util.Wrapper;
+
+import java.util.List;
+
+import static com.github.mustachejava.reflect.ReflectionObjectHandler.tryUnwrap;
+
+/**
+ * Guards the scope a wrapper is called on, which is found the same way the wrapper
+ * finds it. Subclasses only decide whether that scope passes.
+ */
+public abstract class ScopeGuard implements Guard {
+  protected final ObjectHandler oh;
+  protected final int scopeIndex;
+  protected final Wrapper[] wrappers;
+
+  protected ScopeGuard(ObjectHandler oh, int scopeIndex, Wrapper[] wrappers) {
+    this.oh = oh;
+    this.scopeIndex = scopeIndex;
+    this.wrappers = wrappers;
+  }
+
+  @Override
+  public boolean apply(List<Object> objects) {
+    return check(tryUnwrap(oh, scopeIndex, wrappers, objects));
+  }
+
+  @Override
+  public boolean applyTo(Object scope) {
+    if ((scopeIndex != 0 && scopeIndex != -1) || (wrappers != null && wrappers.length != 0)) {
+      return Guard.super.applyTo(scope);
+    }
+    return check(oh.coerce(scope));
+  }
+
+  /**
+   * @param scope the unwrapped and coerced scope or GUARD_FAILED if there isn't one
+   * @return true if the guard passes
+   */
+  protected abstract boolean check(Object scope);
+}
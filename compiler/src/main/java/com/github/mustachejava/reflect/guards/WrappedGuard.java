@@ -4,10 +4,10 @@ import com.github.mustachejava.ObjectHandler;
 import com.github.mustachejava.reflect.Guard;
 import com.github.mustachejava.util.Wrapper;
 
+import java.util.Arrays;
 import java.util.List;
 
-import static com.github.mustachejava.ObjectHandler.makeList;
-import static com.github.mustachejava.reflect.ReflectionObjectHandler.unwrap;
+import static com.github.mustachejava.reflect.ReflectionObjectHandler.tryUnwrap;
 
 /**
  * Dig into the dot notation to guard it from changing.
@@ -18,24 +18,27 @@ import static com.github.mustachejava.reflect.ReflectionObjectHandler.unwrap;
  */
 public class WrappedGuard implements Guard {
   private static final Wrapper[] EMPTY_WRAPPERS = new Wrapper[0];
+  private static final Guard[] EMPTY_GUARDS = new Guard[0];
 
   protected final ObjectHandler oh;
   protected final int index;
   protected final Wrapper[] wrappers;
-  private final List<Guard> wrapperGuard;
+  // An array so that checking it doesn't allocate an iterator
+  private final Guard[] wrapperGuard;
 
   public WrappedGuard(ObjectHandler oh, int index, List<Wrapper> wrappers, List<Guard> wrapperGuard) {
     this.oh = oh;
     this.index = index;
     this.wrappers = wrappers.toArray(EMPTY_WRAPPERS);
-    this.wrapperGuard = wrapperGuard;
+    this.wrapperGuard = wrapperGuard.toArray(EMPTY_GUARDS);
   }
 
   @Override
   public boolean apply(List<Object> objects) {
-    Object scope = unwrap(oh, index, wrappers, objects);
+    Object scope = tryUnwrap(oh, index, wrappers, objects);
+    if (scope == Wrapper.GUARD_FAILED) return false;
     for (Guard predicate : wrapperGuard) {
-      if (!predicate.apply(makeList(scope))) {
+      if (!predicate.applyTo(scope)) {
         return false;
       }
     }
@@ -43,7 +46,7 @@ public class WrappedGuard implements Guard {
   }
 
   public String toString() {
-    return "[WrappedGuard: " + index + " " + wrapperGuard + "]";
+    return "[WrappedGuard: " + index + " " + Arrays.asList(wrapperGuard) + "]";
   }
 
 }
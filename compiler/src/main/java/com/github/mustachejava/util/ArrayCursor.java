@@ -0,0 +1,105 @@
+package com.github.mustachejava.util;
+
+import java.lang.reflect.Array;
+
+/**
+ * A Cursor over columns stored as arrays, one array per column of the schema and one
+ * element per row. Columns may be arrays of objects or of primitives, primitives are
+ * boxed as they are read.
+ */
+public class ArrayCursor implements Cursor {
+  private static final byte OBJECT = 0;
+  private static final byte INT = 1;
+  private static final byte LONG = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte BOOLEAN = 4;
+  private static final byte OTHER = 5;
+
+  private final SlotSchema schema;
+  private final Object[] columns;
+  private final byte[] kinds;
+  private final int rows;
+  private int row = -1;
+
+  /**
+   * @param schema the names of the columns
+   * @param columns an array for each column, all of the same length
+   */
+  public ArrayCursor(SlotSchema schema, Object... columns) {
+    if (columns.length != schema.size()) {
+      throw new IllegalArgumentException("Expected " + schema.size() + " columns, got " + columns.length);
+    }
+    this.schema = schema;
+    this.columns = columns.clone();
+    this.kinds = new byte[columns.length];
+    int rows = -1;
+    for (int i = 0; i < columns.length; i++) {
+      Object column = columns[i];
+      if (column == null || !column.getClass().isArray()) {
+        throw new IllegalArgumentException("Column " + schema.key(i) + " is not an array");
+      }
+      int length = Array.getLength(column);
+      if (rows != -1 && length != rows) {
+        throw new IllegalArgumentException("Column " + schema.key(i) + " has " + length + " rows, expected " + rows);
+      }
+      rows = length;
+      kinds[i] = kind(column.getClass().getComponentType());
+    }
+    this.rows = Math.max(rows, 0);
+  }
+
+  private static byte kind(Class<?> type) {
+    if (!type.isPrimitive()) return OBJECT;
+    if (type == int.class) return INT;
+    if (type == long.class) return LONG;
+    if (type == double.class) return DOUBLE;
+    if (type == boolean.class) return BOOLEAN;
+    return OTHER;
+  }
+
+  @Override
+  public SlotSchema getSchema() {
+    return schema;
+  }
+
+  @Override
+  public boolean advance() {
+    if (row < rows) row++;
+    return row < rows;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return rows == 0;
+  }
+
+  /**
+   * Move back before the first row so the cursor can be iterated again.
+   */
+  public void reset() {
+    row = -1;
+  }
+
+  public int size() {
+    return rows;
+  }
+
+  @Override
+  public Object get(int column) {
+    Object array = columns[column];
+    switch (kinds[column]) {
+      case OBJECT:
+        return ((Object[]) array)[row];
+      case INT:
+        return ((int[]) array)[row];
+      case LONG:
+        return ((long[]) array)[row];
+      case DOUBLE:
+        return ((double[]) array)[row];
+      case BOOLEAN:
+        return ((boolean[]) array)[row];
+      default:
+        return Array.get(array, row);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.github.mustachejava.util;
+
+/**
+ * A section value that is its own scope for every row. Iterating it advances the
+ * cursor and pushes the cursor itself, so nothing is allocated per row, and names in
+ * the section are resolved to columns of the schema once per call site. A cursor is
+ * consumed by iterating it, like an Iterator.
+ */
+public interface Cursor {
+  /**
+   * @return the names of the columns, which must not change while the cursor is used
+   */
+  SlotSchema getSchema();
+
+  /**
+   * Move to the next row, the first call moves to the first row.
+   *
+   * @return false if there are no more rows
+   */
+  boolean advance();
+
+  /**
+   * @return true if the cursor has no rows at all
+   */
+  boolean isEmpty();
+
+  /**
+   * @param column the slot of the column in the schema
+   * @return the value of the column in the current row
+   */
+  Object get(int column);
+}
@@ -0,0 +1,31 @@
+package com.github.mustachejava.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes integers as the same decimal digits as Long.toString() without creating
+ * a String for them. The digits are formatted into a buffer of the thread and
+ * written with a single call, as most writers take a lock for every write.
+ */
+public class Digits {
+
+  // Long.MIN_VALUE has 19 digits and a sign
+  private static final ThreadLocal<char[]> buffers = ThreadLocal.withInitial(() -> new char[20]);
+
+  public static void write(long value, Writer writer) throws IOException {
+    char[] buffer = buffers.get();
+    int start = buffer.length;
+    // Work with the negative value as Long.MIN_VALUE has no positive counterpart
+    long negative = value < 0 ? value : -value;
+    do {
+      long quotient = negative / 10;
+      buffer[--start] = (char) ('0' + (quotient * 10 - negative));
+      negative = quotient;
+    } while (negative != 0);
+    if (value < 0) {
+      buffer[--start] = '-';
+    }
+    writer.write(buffer, start, buffer.length - start);
+  }
+}
@@ -4,7 +4,10 @@ import com.github.mustachejava.MustacheException;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
 
 /**
  * Buffer content while a future is being evaluated in another thread.
@@ -24,20 +27,63 @@ public class LatchedWriter extends Writer {
   // This is set when the latch holder fails
   private volatile Throwable e;
 
+  // Called with the failure or null once the latch holder is done
+  private List<Consumer<Throwable>> listeners;
+
   public LatchedWriter(Writer writer) {
     this.writer = writer;
   }
 
   // Call this when your processing is complete
-  public synchronized void done() throws IOException {
-    writer.append(buffer);
-    latch.countDown();
+  public void done() throws IOException {
+    List<Consumer<Throwable>> completed;
+    synchronized (this) {
+      writer.append(buffer);
+      completed = unlatch();
+    }
+    callListeners(completed);
   }
 
   // If you fail to complete, put an exception here
   public void failed(Throwable e) {
     this.e = e;
+    List<Consumer<Throwable>> completed;
+    synchronized (this) {
+      completed = unlatch();
+    }
+    callListeners(completed);
+  }
+
+  /**
+   * Call the listener once the latch holder is done, rather than waiting for it.
+   * It is called right away if the latch holder is already done.
+   *
+   * @param listener called with the failure or null if there wasn't one
+   */
+  public void whenComplete(Consumer<Throwable> listener) {
+    synchronized (this) {
+      if (latch.getCount() != 0) {
+        if (listeners == null) listeners = new ArrayList<>(1);
+        listeners.add(listener);
+        return;
+      }
+    }
+    listener.accept(e);
+  }
+
+  private List<Consumer<Throwable>> unlatch() {
     latch.countDown();
+    List<Consumer<Throwable>> completed = listeners;
+    listeners = null;
+    return completed;
+  }
+
+  private void callListeners(List<Consumer<Throwable>> completed) {
+    if (completed != null) {
+      for (Consumer<Throwable> listener : completed) {
+        listener.accept(e);
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,146 @@
+package com.github.mustachejava.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The state of a single render: the stack of scopes, which is this list, and
+ * the current partial recursion depth and the frames of values that sections
+ * have hoisted out of their loops. One context per thread is pooled so that
+ * rendering a warmed template doesn't need to allocate one. The pooled context
+ * stays in its slot while in use so that it always belongs to the outermost
+ * render and nested renders don't evict it. The writer is not part of the
+ * context as codes may replace it, for example with a LatchedWriter.
+ */
+public class RenderContext extends InternalArrayList<Object> {
+  private static final ThreadLocal<RenderContext> pool = ThreadLocal.withInitial(RenderContext::new);
+
+  private int depth;
+  private boolean acquired;
+
+  // Frames are [owner, element, values...], frame is the index of the current one
+  private Object[] frames = new Object[16];
+  private int top;
+  private int frame = -1;
+
+  public RenderContext() {
+    super();
+  }
+
+  private RenderContext(Collection<?> scopes, int depth) {
+    super(scopes);
+    this.depth = depth;
+  }
+
+  /**
+   * Take the pooled context of this thread or create a new one if it is in use,
+   * for instance by a template executed from within another template.
+   *
+   * @return an empty context that must be returned with release()
+   */
+  public static RenderContext acquire() {
+    RenderContext context = pool.get();
+    if (context.acquired) {
+      context = new RenderContext();
+    }
+    context.acquired = true;
+    return context;
+  }
+
+  /**
+   * Clear the context so that the pooled one can be acquired again. Contexts
+   * created because the pooled one was in use are left to the collector.
+   */
+  public void release() {
+    if (acquired) {
+      acquired = false;
+      clear();
+      depth = 0;
+      Arrays.fill(frames, 0, top, null);
+      top = 0;
+      frame = -1;
+    }
+  }
+
+  /**
+   * @return a copy of the scopes and depth that can be handed to another thread
+   */
+  public RenderContext snapshot() {
+    return new RenderContext(this, depth);
+  }
+
+  /**
+   * Copy the scopes before they cross a thread boundary. The scopes that are
+   * passed around are reused once the render is complete.
+   *
+   * @param scopes the current scopes
+   * @return a copy that is owned by the caller
+   */
+  public static List<Object> snapshot(List<Object> scopes) {
+    return scopes instanceof RenderContext ? ((RenderContext) scopes).snapshot() : new InternalArrayList<>(scopes);
+  }
+
+  /**
+   * @return the recursion depth after entering the partial
+   */
+  public int enter() {
+    return ++depth;
+  }
+
+  public void exit() {
+    depth--;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Start a frame of values for a section. Frames are not copied by snapshot().
+   *
+   * @param owner the section that owns the frame
+   * @param size  the number of values in the frame
+   * @return the frame to restore with exitFrame()
+   */
+  public int enterFrame(Object owner, int size) {
+    int previous = frame;
+    int end = top + 2 + size;
+    if (end > frames.length) {
+      frames = Arrays.copyOf(frames, Math.max(end, frames.length * 2));
+    }
+    frame = top;
+    frames[frame] = owner;
+    top = end;
+    return previous;
+  }
+
+  public void exitFrame(int previous) {
+    Arrays.fill(frames, frame, top, null);
+    top = frame;
+    frame = previous;
+  }
+
+  /**
+   * @return the section that owns the current frame or null if there isn't one
+   */
+  public Object getFrameOwner() {
+    return frame == -1 ? null : frames[frame];
+  }
+
+  public Object getFrameElement() {
+    return frames[frame + 1];
+  }
+
+  public void setFrameElement(Object element) {
+    frames[frame + 1] = element;
+  }
+
+  public Object getFrameValue(int index) {
+    return frames[frame + 2 + index];
+  }
+
+  public void setFrameValue(int index, Object value) {
+    frames[frame + 2 + index] = value;
+  }
+}
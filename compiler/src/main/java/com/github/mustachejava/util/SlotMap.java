@@ -0,0 +1,149 @@
+package com.github.mustachejava.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map whose keys come from a SlotSchema and whose values sit in an array. The
+ * ReflectionObjectHandler resolves a name to a slot once per schema, rendering then
+ * reads the array without hashing the name. It is also a regular Map, a key may be
+ * absent and a present key may have a null value. Only keys of the schema can be put.
+ */
+public final class SlotMap extends AbstractMap<String, Object> {
+  // The value of a slot whose key isn't in the map
+  static final Object ABSENT = new Object();
+
+  private final SlotSchema schema;
+  private final Object[] values;
+
+  SlotMap(SlotSchema schema, Object[] values) {
+    this.schema = schema;
+    this.values = values;
+  }
+
+  public SlotSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * @param slot the slot
+   * @param absent returned if the key of the slot isn't in the map
+   * @return the value of the slot or absent
+   */
+  public Object getSlot(int slot, Object absent) {
+    Object value = values[slot];
+    return value == ABSENT ? absent : value;
+  }
+
+  public boolean has(int slot) {
+    return values[slot] != ABSENT;
+  }
+
+  public void set(int slot, Object value) {
+    values[slot] = value;
+  }
+
+  public void clear(int slot) {
+    values[slot] = ABSENT;
+  }
+
+  @Override
+  public Object get(Object key) {
+    int slot = schema.slot(key);
+    return slot == -1 ? null : getSlot(slot, null);
+  }
+
+  @Override
+  public Object getOrDefault(Object key, Object defaultValue) {
+    int slot = schema.slot(key);
+    return slot == -1 ? defaultValue : getSlot(slot, defaultValue);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    int slot = schema.slot(key);
+    return slot != -1 && has(slot);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    int slot = schema.slot(key);
+    if (slot == -1) {
+      throw new IllegalArgumentException("Key is not in the schema: " + key);
+    }
+    Object previous = getSlot(slot, null);
+    values[slot] = value;
+    return previous;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    int slot = schema.slot(key);
+    if (slot == -1) return null;
+    Object previous = getSlot(slot, null);
+    values[slot] = ABSENT;
+    return previous;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (Object value : values) {
+      if (value != ABSENT) size++;
+    }
+    return size;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new Iterator<Entry<String, Object>>() {
+          int next = advance(0);
+          int last = -1;
+
+          private int advance(int slot) {
+            while (slot < values.length && values[slot] == ABSENT) slot++;
+            return slot;
+          }
+
+          @Override
+          public boolean hasNext() {
+            return next < values.length;
+          }
+
+          @Override
+          public Entry<String, Object> next() {
+            if (next >= values.length) throw new NoSuchElementException();
+            last = next;
+            next = advance(next + 1);
+            final int slot = last;
+            return new SimpleEntry<String, Object>(schema.key(slot), values[slot]) {
+              @Override
+              public Object setValue(Object value) {
+                values[slot] = value;
+                return super.setValue(value);
+              }
+            };
+          }
+
+          @Override
+          public void remove() {
+            if (last == -1) throw new IllegalStateException();
+            values[last] = ABSENT;
+            last = -1;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return SlotMap.this.size();
+      }
+    };
+  }
+}
@@ -0,0 +1,120 @@
+package com.github.mustachejava.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The keys shared by many SlotMaps. Each key has a slot in the value array of every
+ * map of the schema, so a template can resolve a name to its slot once and then read
+ * the slot of each map directly. Create a schema once per shape of data and reuse it.
+ */
+public final class SlotSchema {
+  private final String[] keys;
+  private final Map<String, Integer> slots;
+
+  private SlotSchema(String[] keys) {
+    this.keys = keys;
+    Map<String, Integer> slots = new HashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      if (slots.put(keys[i], i) != null) {
+        throw new IllegalArgumentException("Duplicate key in schema: " + keys[i]);
+      }
+    }
+    this.slots = slots;
+  }
+
+  /**
+   * @param keys the keys in slot order
+   * @return a new schema
+   */
+  public static SlotSchema of(String... keys) {
+    return new SlotSchema(keys.clone());
+  }
+
+  /**
+   * @param key a key
+   * @return the slot of the key or -1 if it isn't in the schema
+   */
+  public int slot(Object key) {
+    Integer slot = slots.get(key);
+    return slot == null ? -1 : slot;
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  public String key(int slot) {
+    return keys[slot];
+  }
+
+  public List<String> keys() {
+    return Collections.unmodifiableList(Arrays.asList(keys));
+  }
+
+  /**
+   * @return a map of this schema without any values
+   */
+  public SlotMap newMap() {
+    Object[] values = new Object[keys.length];
+    Arrays.fill(values, SlotMap.ABSENT);
+    return new SlotMap(this, values);
+  }
+
+  /**
+   * @param values a value for every key, in slot order
+   * @return a map of this schema with every key present
+   */
+  public SlotMap create(Object... values) {
+    if (values.length != keys.length) {
+      throw new IllegalArgumentException("Expected " + keys.length + " values, got " + values.length);
+    }
+    return new SlotMap(this, values.clone());
+  }
+
+  /**
+   * Copy the values of the keys of this schema, other keys are ignored.
+   *
+   * @param map the map to copy
+   * @return a map of this schema with the keys the map has
+   */
+  public SlotMap from(Map<String, ?> map) {
+    SlotMap slotMap = newMap();
+    for (Map.Entry<String, ?> entry : map.entrySet()) {
+      int slot = slot(entry.getKey());
+      if (slot != -1) slotMap.set(slot, entry.getValue());
+    }
+    return slotMap;
+  }
+
+  /**
+   * Copy fields with the keys of this schema, other fields are ignored. This builds
+   * a map from a tree of a JSON library without depending on it, for instance from
+   * the fields() of a Jackson ObjectNode with a function that turns a JsonNode into
+   * the value a template should see.
+   *
+   * @param fields the fields to copy
+   * @param convert turns the value of a field into the value of the slot
+   * @param <V> the type of the values of the fields
+   * @return a map of this schema with the keys of the fields
+   */
+  public <V> SlotMap from(Iterator<? extends Map.Entry<String, ? extends V>> fields, Function<? super V, ?> convert) {
+    SlotMap slotMap = newMap();
+    while (fields.hasNext()) {
+      Map.Entry<String, ? extends V> field = fields.next();
+      int slot = slot(field.getKey());
+      if (slot != -1) slotMap.set(slot, convert.apply(field.getValue()));
+    }
+    return slotMap;
+  }
+
+  @Override
+  public String toString() {
+    return "SlotSchema" + Arrays.toString(keys);
+  }
+}
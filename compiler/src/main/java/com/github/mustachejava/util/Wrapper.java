@@ -6,5 +6,29 @@ import java.util.List;
  * Call a wrapped name on a set of scopes.
  */
 public interface Wrapper {
+  /**
+   * Returned by tryCall when the wrapper doesn't apply to the scopes.
+   */
+  Object GUARD_FAILED = new Object() {
+    @Override
+    public String toString() {
+      return "[GUARD_FAILED]";
+    }
+  };
+
   Object call(List<Object> scopes) throws GuardException;
+
+  /**
+   * Call the wrapper without using an exception to signal a guard failure.
+   *
+   * @param scopes the scopes to evaluate against
+   * @return the value or GUARD_FAILED if the wrapper needs to be found again
+   */
+  default Object tryCall(List<Object> scopes) {
+    try {
+      return call(scopes);
+    } catch (GuardException e) {
+      return GUARD_FAILED;
+    }
+  }
 }
@@ -0,0 +1,136 @@
+package com.github.mustachejava;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompletionStageTest {
+
+  private static final String TEMPLATE = "{{title}}:{{#items}}{{name}},{{/items}}{{^missing}}none{{/missing}}!";
+
+  private static Map<String, Object> item(String name) {
+    Map<String, Object> item = new HashMap<>();
+    item.put("name", name);
+    return item;
+  }
+
+  private static void testPending(DefaultMustacheFactory mf) throws IOException {
+    ThreadPoolExecutor es = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+    try {
+      mf.setExecutorService(es);
+      Mustache m = mf.compile(new StringReader(TEMPLATE), "stages");
+      CompletableFuture<String> title = new CompletableFuture<>();
+      CompletableFuture<Object> items = new CompletableFuture<>();
+      CompletableFuture<Boolean> missing = new CompletableFuture<>();
+      Map<String, Object> scope = new HashMap<>();
+      scope.put("title", title);
+      scope.put("items", items);
+      scope.put("missing", missing);
+      StringWriter sw = new StringWriter();
+      Writer writer = m.execute(sw, scope);
+      // Nothing runs on the executor while the stages are pending
+      assertEquals(0, es.getTaskCount());
+      assertEquals("", sw.toString());
+      missing.complete(false);
+      items.complete(Arrays.asList(item("a"), item("b")));
+      title.complete("t");
+      writer.close();
+      assertEquals("t:a,b,none!", sw.toString());
+    } finally {
+      es.shutdown();
+    }
+  }
+
+  @Test
+  public void testPendingStages() throws IOException {
+    testPending(new DefaultMustacheFactory());
+  }
+
+  @Test
+  public void testPendingStagesFlat() throws IOException {
+    testPending(new FlatMustacheFactory());
+  }
+
+  private static void testNested(DefaultMustacheFactory mf) throws IOException {
+    ExecutorService es = Executors.newSingleThreadExecutor();
+    try {
+      mf.setExecutorService(es);
+      Mustache m = mf.compile(new StringReader("{{#outer}}[{{#inner}}{{name}}{{/inner}}]{{/outer}}!"), "stages");
+      CompletableFuture<Object> outer = new CompletableFuture<>();
+      CompletableFuture<Object> inner = new CompletableFuture<>();
+      Map<String, Object> body = new HashMap<>();
+      body.put("inner", inner);
+      Map<String, Object> scope = new HashMap<>();
+      scope.put("outer", outer);
+      StringWriter sw = new StringWriter();
+      Writer writer = m.execute(sw, scope);
+      // The body of the outer section finds the inner stage pending
+      outer.complete(body);
+      // Which would never run if the only executor thread waited for it
+      inner.complete(item("a"));
+      writer.close();
+      assertEquals("[a]!", sw.toString());
+    } finally {
+      es.shutdown();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testNestedStages() throws IOException {
+    testNested(new DefaultMustacheFactory());
+  }
+
+  @Test(timeout = 10000)
+  public void testNestedStagesFlat() throws IOException {
+    testNested(new FlatMustacheFactory());
+  }
+
+  @Test
+  public void testWithoutExecutor() throws IOException {
+    Mustache m = new DefaultMustacheFactory().compile(new StringReader(TEMPLATE), "stages");
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("title", CompletableFuture.completedFuture("t"));
+    scope.put("items", CompletableFuture.completedFuture(item("a")));
+    scope.put("missing", CompletableFuture.completedFuture(true));
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope).close();
+    assertEquals("t:a,!", sw.toString());
+  }
+
+  @Test
+  public void testFailedStage() {
+    ExecutorService es = Executors.newSingleThreadExecutor();
+    try {
+      DefaultMustacheFactory mf = new DefaultMustacheFactory();
+      mf.setExecutorService(es);
+      Mustache m = mf.compile(new StringReader("{{title}}"), "stages");
+      CompletableFuture<String> title = new CompletableFuture<>();
+      Map<String, Object> scope = new HashMap<>();
+      scope.put("title", title);
+      Writer writer = m.execute(new StringWriter(), scope);
+      title.completeExceptionally(new IllegalStateException("backend"));
+      try {
+        writer.close();
+        fail("Should have failed");
+      } catch (IOException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("backend"));
+      }
+    } finally {
+      es.shutdown();
+    }
+  }
+}
@@ -68,6 +68,39 @@ public class DotNotationTest {
       assertEquals("", writer.toString());
   }
 
+  private static final class User {
+      final Profile profile = new Profile();
+  }
+
+  private static final class Profile {
+      final Map<String, Object> avatar = new HashMap<>();
+
+      Profile() {
+          avatar.put("url", new Url());
+      }
+  }
+
+  private static final class Url {
+      String url() {
+          return "avatar.png";
+      }
+  }
+
+  @Test
+  public void testPath() {
+      Mustache mustache = compile("{{#user.profile.avatar.url}}{{url}}{{/user.profile.avatar.url}}");
+      Map<String, Object> model = new HashMap<>();
+      model.put("user", new User());
+      StringWriter sw = new StringWriter();
+      mustache.execute(sw, model);
+      assertEquals("avatar.png", sw.toString());
+      // The allocation of walking the path is measured by PathBench
+      mustache = compile("{{#user.profile.avatar.url.url}}.{{/user.profile.avatar.url.url}}");
+      sw = new StringWriter();
+      mustache.execute(sw, model);
+      assertEquals(".", sw.toString());
+  }
+
   private Mustache compile(String template) {
       Reader reader = new StringReader(template);
       return factory.compile(reader, "template");
@@ -1,11 +1,18 @@
 package com.github.mustachejava;
 
+import com.github.mustachejava.codes.DefaultCode;
+import com.github.mustachejava.codes.DynamicBindings;
 import org.junit.Test;
 
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class DynamicNamesTest {
 
@@ -26,4 +33,51 @@ public class DynamicNamesTest {
                 "\n" +
                 "Answer: Mustache Do!", result);
     }
+
+    private static DynamicBindings dynamicBindings(Mustache m) {
+        Code section = m.getCodes()[0];
+        return ((DefaultCode) section.getCodes()[0]).getDynamicBindings();
+    }
+
+    @Test
+    public void testCachedBindings() {
+        MustacheFactory mf = new DefaultMustacheFactory();
+        Mustache m = mf.compile(new StringReader("{{#items}}{{*key}},{{/items}}"), "cached");
+        List<Map<String, String>> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, String> item = new HashMap<>();
+            item.put("key", i % 2 == 0 ? "even" : "odd");
+            item.put("even", "e" + i);
+            item.put("odd", "o" + i);
+            items.add(item);
+        }
+        StringWriter writer = new StringWriter();
+        m.execute(writer, new HashMap<String, Object>() {{
+            put("items", items);
+        }});
+        assertEquals("e0,o1,e2,o3,e4,o5,e6,o7,e8,o9,", writer.toString());
+        DynamicBindings bindings = dynamicBindings(m);
+        assertEquals(2, bindings.getMisses());
+        assertEquals(8, bindings.getHits());
+        assertEquals(2, bindings.size());
+    }
+
+    @Test
+    public void testEviction() {
+        MustacheFactory mf = new DefaultMustacheFactory();
+        Mustache m = mf.compile(new StringReader("{{#items}}{{*key}}{{/items}}"), "evicted");
+        List<Map<String, String>> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Map<String, String> item = new HashMap<>();
+            item.put("key", "name" + i);
+            item.put("name" + i, "");
+            items.add(item);
+        }
+        m.execute(new StringWriter(), new HashMap<String, Object>() {{
+            put("items", items);
+        }});
+        DynamicBindings bindings = dynamicBindings(m);
+        assertEquals(1000, bindings.getMisses());
+        assertTrue(String.valueOf(bindings.size()), bindings.size() <= 64);
+    }
 }
@@ -0,0 +1,129 @@
+package com.github.mustachejava;
+
+import com.github.mustachejava.codes.FlatMustache;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.github.mustachejava.TestUtil.getContents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlatMustacheFactoryTest {
+  private File root;
+
+  private static String render(Mustache m, Object scope) throws IOException {
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  private static Mustache compile(String template) {
+    return new FlatMustacheFactory().compile(new StringReader(template), "flat");
+  }
+
+  // The flat program must render exactly what the interpreter renders
+  private static void assertSame(String template, Object scope) throws IOException {
+    Mustache expected = new DefaultMustacheFactory().compile(new StringReader(template), "tree");
+    assertEquals(render(expected, scope), render(compile(template), scope));
+  }
+
+  @Test
+  public void testComplex() throws IOException {
+    Mustache m = new FlatMustacheFactory(root).compile("complex.html");
+    assertEquals(getContents(root, "complex.txt"), render(m, new ComplexObject()));
+  }
+
+  @Test
+  public void testComplexParallel() throws IOException {
+    FlatMustacheFactory mf = new FlatMustacheFactory(root);
+    ExecutorService es = Executors.newCachedThreadPool();
+    try {
+      mf.setExecutorService(es);
+      Mustache m = mf.compile("complex.html");
+      assertEquals(getContents(root, "complex.txt"), render(m, new ParallelComplexObject()));
+    } finally {
+      es.shutdown();
+    }
+  }
+
+  @Test
+  public void testSuperinstructions() throws IOException {
+    Mustache m = compile("Hello {{name}}!{{#items}}[{{.}}]{{/items}}{{^items}}none{{/items}} {{name}}");
+    assertEquals("Hello a![1][2] a", render(m, new Object() {
+      String name = "a";
+      List<Integer> items = Arrays.asList(1, 2);
+    }));
+    String listing = ((FlatMustache) m).disassemble();
+    assertEquals("0: LITERAL \"Hello \"\n" +
+            "3: VALUE_LITERAL name \"!\"\n" +
+            "6: LOOKUP items\n" +
+            "9: LOOP_BEGIN items 21\n" +
+            "12: LITERAL \"[\"\n" +
+            "15: VALUE_LITERAL . \"]\"\n" +
+            "18: LOOP_END items 12\n" +
+            "21: LOOKUP items\n" +
+            "24: INVERTED items 30\n" +
+            "27: LITERAL \"none\"\n" +
+            "30: LITERAL \" \"\n" +
+            "33: VALUE name\n", listing);
+  }
+
+  @Test
+  public void testIteration() throws IOException {
+    String template = "{{#value}}<{{#inner}}({{.}}){{/inner}}{{^inner}}-{{/inner}}>{{/value}}|";
+    Object[] inners = {new int[]{1, 2}, new String[0], Collections.emptyList(), Arrays.asList("a", "b"),
+            Collections.singleton("s"), Collections.singletonList(Optional.of("x")),
+            false, true, "", "text", 1, null};
+    for (Object inner : inners) {
+      assertSame(template, Collections.singletonMap("value", Collections.singletonMap("inner", inner)));
+    }
+    assertSame(template, Collections.singletonMap("value", Collections.emptySet()));
+    // Iterators are consumed by the first section
+    assertEquals("<(a)(b)->|", render(compile(template), Collections.singletonMap("value",
+            Collections.singletonMap("inner", Arrays.asList("a", "b").iterator()))));
+  }
+
+  @Test
+  public void testScopesRestored() throws IOException {
+    Object scope = new Object() {
+      String name = "top";
+      List<Object> list = Arrays.asList(new Object() {
+        String name = "a";
+      }, null, new Object() {
+        String name = "b";
+        List<Object> list = Collections.singletonList(new Object() {
+          String name = "c";
+        });
+      });
+    };
+    assertSame("{{#list}}{{name}}{{#list}}{{name}}{{/list}}{{/list}}{{name}}", scope);
+  }
+
+  @Test
+  public void testPartialsAndFunctions() throws IOException {
+    FlatMustacheFactory mf = new FlatMustacheFactory(root);
+    Mustache m = mf.compile(new StringReader("{{#wrap}}x{{name}}{{/wrap}}{{>partialsub}}"), "functions.html");
+    String result = render(m, new Object() {
+      String name = "n";
+      java.util.function.Function<String, String> wrap = s -> "[" + s + "]";
+    });
+    assertTrue(result, result.startsWith("[xn]"));
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    File file = new File("src/test/resources");
+    root = new File(file, "simple.html").exists() ? file : new File("../src/test/resources");
+  }
+}
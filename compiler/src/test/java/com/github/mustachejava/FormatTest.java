@@ -0,0 +1,131 @@
+package com.github.mustachejava;
+
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.util.Digits;
+import com.github.mustachejavabenchmarks.NullWriter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FormatTest {
+
+  private static final String TEMPLATE = "{{i}} {{l}} {{s}} {{b}} {{d}} {{f}} {{bd}} {{t}} {{{i}}} {{text}}";
+
+  private static Map<String, Object> scope() {
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("i", -42);
+    scope.put("l", Long.MIN_VALUE);
+    scope.put("s", (short) 0);
+    scope.put("b", (byte) 7);
+    scope.put("d", 1.5);
+    scope.put("f", 2.25f);
+    scope.put("bd", new BigDecimal("1E+3"));
+    scope.put("t", true);
+    scope.put("text", "<b>");
+    return scope;
+  }
+
+  private static String render(DefaultMustacheFactory mf, String template, Object scope) throws IOException {
+    Mustache m = mf.compile(new StringReader(template), "format");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  @Test
+  public void testDigits() throws IOException {
+    long[] values = {0, 1, -1, 9, 10, 99, 100, 12345, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE,
+            999999999999999999L, 1000000000000000000L};
+    for (long value : values) {
+      StringWriter sw = new StringWriter();
+      Digits.write(value, sw);
+      assertEquals(Long.toString(value), sw.toString());
+    }
+  }
+
+  @Test
+  public void testValues() throws IOException {
+    String expected = "-42 -9223372036854775808 0 7 1.5 2.25 1E+3 true -42 &lt;b&gt;";
+    assertEquals(expected, render(new DefaultMustacheFactory(), TEMPLATE, scope()));
+    assertEquals(expected, render(new FlatMustacheFactory(), TEMPLATE, scope()));
+  }
+
+  @Test
+  public void testHandlerFormat() throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(new ReflectionObjectHandler() {
+      @Override
+      public boolean format(Object object, Writer writer) throws IOException {
+        if (object instanceof Double) {
+          // Cents, without a String
+          long cents = Math.round((Double) object * 100);
+          Digits.write(cents / 100, writer);
+          writer.write('.');
+          writer.write('0' + (int) (cents % 100) / 10);
+          writer.write('0' + (int) (cents % 10));
+          return true;
+        }
+        return super.format(object, writer);
+      }
+    });
+    assertEquals("-42 1.50", render(mf, "{{i}} {{d}}", scope()));
+  }
+
+  @Test
+  public void testStringifyStillUsed() throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(new ReflectionObjectHandler() {
+      @Override
+      public String stringify(Object object) {
+        return object instanceof Number ? "#" + object : super.stringify(object);
+      }
+    });
+    assertEquals("#-42 true", render(mf, "{{i}} {{t}}", scope()));
+  }
+
+  @Test
+  public void testEncodeStillUsed() throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory() {
+      @Override
+      public void encode(String value, Writer writer) {
+        super.encode("[" + value + "]", writer);
+      }
+    };
+    assertEquals("[-42] -42", render(mf, "{{i}} {{{i}}}", scope()));
+  }
+
+  @Test
+  public void testNoAllocation() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    if (!threadBean.isThreadAllocatedMemorySupported() || !threadBean.isThreadAllocatedMemoryEnabled()) return;
+    int rows = 10000;
+    Integer[] numbers = new Integer[rows];
+    for (int i = 0; i < rows; i++) {
+      numbers[i] = 1000000 + i;
+    }
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("numbers", numbers);
+    Mustache m = new DefaultMustacheFactory().compile(new StringReader("{{#numbers}}{{.}}\n{{/numbers}}"), "format");
+    NullWriter writer = new NullWriter();
+    long thread = Thread.currentThread().getId();
+    long allocated = Long.MAX_VALUE;
+    for (int i = 0; i < 2000 && allocated >= rows; i++) {
+      long start = threadBean.getThreadAllocatedBytes(thread);
+      m.execute(writer, scope);
+      allocated = threadBean.getThreadAllocatedBytes(thread) - start;
+    }
+    assertTrue("Allocated " + allocated + " bytes for " + rows + " rows", allocated < rows);
+  }
+}
@@ -0,0 +1,125 @@
+package com.github.mustachejava;
+
+import com.github.mustachejava.codes.FlatMustache;
+import com.github.mustachejava.util.Node;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class InlinePartialsTest {
+  private File root;
+
+  private static final Map<String, String> templates = new HashMap<>();
+
+  static {
+    templates.put("main.html", "Hello {{#items}}<{{>item}}>{{/items}}{{>footer}} done");
+    templates.put("item.html", "={{name}}{{>detail}}=");
+    templates.put("detail.html", ":{{detail}}");
+    templates.put("footer.html", "!");
+  }
+
+  private static DefaultMustacheFactory inlining(DefaultMustacheFactory mf) {
+    mf.setInlinePartials(true);
+    return mf;
+  }
+
+  private static String render(Mustache m, Object scope) throws IOException {
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  private static class Item {
+    String name;
+    String detail;
+
+    Item(String name, String detail) {
+      this.name = name;
+      this.detail = detail;
+    }
+  }
+
+  private final Object scope = new Object() {
+    List<Item> items = Arrays.asList(new Item("a", "1"), new Item("b", "2"));
+  };
+
+  private static FlatMustacheFactory inMemory() {
+    return new FlatMustacheFactory() {
+      @Override
+      public Reader getReader(String resourceName) {
+        return new StringReader(templates.get(resourceName));
+      }
+    };
+  }
+
+  @Test
+  public void testInlined() throws IOException {
+    Mustache m = inlining(inMemory()).compile("main.html");
+    assertEquals("Hello <=a:1=><=b:2=>! done", render(m, scope));
+    // Every partial was spliced into its caller and the seams merged
+    String listing = ((FlatMustache) m).disassemble();
+    assertFalse(listing, listing.contains("CODE"));
+  }
+
+  @Test
+  public void testIdentityAndInvert() throws IOException {
+    Mustache m = inlining(inMemory()).compile("main.html");
+    StringWriter sw = new StringWriter();
+    m.identity(sw);
+    assertEquals(templates.get("main.html"), sw.toString());
+    String text = render(m, scope);
+    Node inverted = m.invert(text);
+    Mustache plain = inMemory().compile("main.html");
+    assertEquals(plain.invert(text), inverted);
+  }
+
+  @Test
+  public void testSameOutput() throws IOException {
+    Object recursion = new Object() {
+      Object value = new Object() {
+        boolean value = false;
+      };
+    };
+    Object test = new Object() {
+      Object test = new Object() {
+        boolean test = false;
+      };
+    };
+    assertSame("recursion.html", recursion);
+    assertSame("recursion_with_inheritance.html", recursion);
+    assertSame("recursive_partial_inheritance.html", test);
+    assertSame("page.html", test);
+    assertSame("partialsubpartial.html", new Object() {
+      String name = "Sam";
+    });
+  }
+
+  private void assertSame(String name, Object scope) throws IOException {
+    Mustache expected = new DefaultMustacheFactory(root).compile(name);
+    Mustache inlined = inlining(new DefaultMustacheFactory(root)).compile(name);
+    assertEquals(name, render(expected, scope), render(inlined, scope));
+    StringWriter expectedIdentity = new StringWriter();
+    expected.identity(expectedIdentity);
+    StringWriter inlinedIdentity = new StringWriter();
+    inlined.identity(inlinedIdentity);
+    assertEquals(name, expectedIdentity.toString(), inlinedIdentity.toString());
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    File file = new File("src/test/resources");
+    root = new File(file, "recursion.html").exists() ? file : new File("../src/test/resources");
+  }
+}
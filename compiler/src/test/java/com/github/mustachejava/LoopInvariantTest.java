@@ -0,0 +1,172 @@
+package com.github.mustachejava;
+
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoopInvariantTest {
+
+  private static DefaultMustacheFactory hoisting() {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setHoistLoopInvariants(true);
+    return mf;
+  }
+
+  private static String render(DefaultMustacheFactory mf, String template, Object... scopes) throws IOException {
+    Mustache m = mf.compile(new StringReader(template), "loop");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scopes).close();
+    return sw.toString();
+  }
+
+  private static void assertSame(String template, Object... scopes) throws IOException {
+    String expected = render(new DefaultMustacheFactory(), template, scopes);
+    assertEquals(expected, render(hoisting(), template, scopes));
+  }
+
+  private static class Site {
+    int calls;
+    List<Object> items;
+
+    Site(Object... items) {
+      this.items = Arrays.asList(items);
+    }
+
+    String siteName() {
+      calls++;
+      return "site";
+    }
+  }
+
+  private static class Item {
+    String name;
+
+    Item(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class NamedItem extends Item {
+    String siteName = "own";
+
+    NamedItem(String name) {
+      super(name);
+    }
+  }
+
+  @Test
+  public void testHoistedOncePerEntry() throws IOException {
+    Site site = new Site(new Item("a"), new Item("b"), new Item("c"));
+    String template = "{{#items}}{{name}}@{{siteName}} {{/items}}";
+    assertEquals("a@site b@site c@site ", render(hoisting(), template, site));
+    assertEquals(1, site.calls);
+    site.calls = 0;
+    assertEquals("a@site b@site c@site ", render(new DefaultMustacheFactory(), template, site));
+    assertEquals(3, site.calls);
+  }
+
+  @Test
+  public void testHoistedInFlatMode() throws IOException {
+    Site site = new Site(new Item("a"), new Item("b"), new Item("c"));
+    FlatMustacheFactory mf = new FlatMustacheFactory();
+    mf.setHoistLoopInvariants(true);
+    assertEquals("a@site b@site c@site ", render(mf, "{{#items}}{{name}}@{{siteName}} {{/items}}", site));
+    assertEquals(1, site.calls);
+  }
+
+  @Test
+  public void testElementsAreNotAskedEveryTime() throws IOException {
+    int[] asked = new int[1];
+    DefaultMustacheFactory mf = hoisting();
+    mf.setObjectHandler(new ReflectionObjectHandler() {
+      @Override
+      public boolean provides(Object scope, String name) {
+        asked[0]++;
+        return super.provides(scope, name);
+      }
+    });
+    Site site = new Site(new Item("a"), new NamedItem("b"), new Item("c"), new NamedItem("d"), new Item("e"));
+    assertEquals("a@site b@own c@site d@own e@site ", render(mf, "{{#items}}{{name}}@{{siteName}} {{/items}}", site));
+    // Names the elements have are no longer hoisted, others are asked once per class
+    assertEquals(3, asked[0]);
+  }
+
+  @Test
+  public void testEmptySectionDoesNotLookUp() throws IOException {
+    Site site = new Site();
+    assertEquals("", render(hoisting(), "{{#items}}{{siteName}}{{/items}}", site));
+    assertEquals(0, site.calls);
+  }
+
+  @Test
+  public void testElementsThatHaveTheName() throws IOException {
+    Map<String, Object> map = new HashMap<>();
+    map.put("name", "m");
+    map.put("siteName", "map");
+    Map<String, Object> other = new HashMap<>();
+    other.put("name", "o");
+    assertSame("{{#items}}{{name}}@{{siteName}} {{/items}}",
+            new Site(new Item("a"), new NamedItem("b"), map, null, other, new Item("c"), "s"));
+  }
+
+  @Test
+  public void testNestedSections() throws IOException {
+    List<Object> inner = new ArrayList<>();
+    inner.add(new NamedItem("x"));
+    inner.add(new Item("y"));
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("siteName", "top");
+    scope.put("outer", Arrays.asList(new NamedItem("a"), new Item("b")));
+    scope.put("inner", inner);
+    assertSame("{{#outer}}[{{siteName}}{{#inner}}({{name}}{{siteName}}){{/inner}}{{siteName}}]{{/outer}}", scope);
+  }
+
+  @Test
+  public void testDotNotation() throws IOException {
+    Map<String, Object> site = new HashMap<>();
+    site.put("name", "site");
+    Map<String, Object> own = new HashMap<>();
+    own.put("site", new Item("own"));
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("site", site);
+    scope.put("items", Arrays.asList(new Item("a"), own, new Item("b")));
+    assertSame("{{#items}}{{site.name}}{{site.missing}},{{/items}}", scope);
+  }
+
+  private static Map<String, Object> node(String name, Object... children) {
+    Map<String, Object> node = new HashMap<>();
+    node.put("name", name);
+    node.put("children", Arrays.asList(children));
+    return node;
+  }
+
+  @Test
+  public void testRecursion() throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory() {
+      @Override
+      public java.io.Reader getReader(String resourceName) {
+        return new StringReader("{{#children}}{{label}}:{{name}}({{>node}}){{/children}}");
+      }
+    };
+    mf.setHoistLoopInvariants(true);
+    Map<String, Object> leaf = node("leaf");
+    leaf.put("label", "inner");
+    Map<String, Object> root = new HashMap<>();
+    root.put("label", "outer");
+    root.put("children", Arrays.asList(node("branch", leaf, node("item")), node("other")));
+    Mustache m = mf.compile("node.html");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, root).close();
+    assertEquals("outer:branch(inner:leaf()outer:item())outer:other()", sw.toString());
+  }
+}
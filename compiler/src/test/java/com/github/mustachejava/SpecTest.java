@@ -105,15 +105,7 @@ public class SpecTest {
       try {
         Mustache compile = CF.compile(template, file);
         StringWriter writer = new StringWriter();
-        String json = data.toString();
-        if (json.startsWith("{")) {
-          compile.execute(writer, new Object[]{new ObjectMapper().readValue(json, Map.class), functionMap.get(file)});
-        } else if (json.startsWith("[")) {
-          compile.execute(writer, new Object[]{functionMap.get(file), new ObjectMapper().readValue(json, List.class)});
-        } else {
-          String s = new ObjectMapper().readValue(json, String.class);
-          compile.execute(writer, new Object[]{functionMap.get(file), s});
-        }
+        compile.execute(writer, createScopes(data, functionMap.get(file)));
         String expected = test.get("expected").asText();
         if (transformOutput(writer.toString()).equals(transformOutput(expected))) {
           System.out.print(": success");
@@ -142,6 +134,18 @@ public class SpecTest {
     assertFalse(fail > 0);
   }
 
+  protected Object[] createScopes(JsonNode data, Object functions) throws IOException {
+    String json = data.toString();
+    if (json.startsWith("{")) {
+      return new Object[]{new ObjectMapper().readValue(json, Map.class), functions};
+    } else if (json.startsWith("[")) {
+      return new Object[]{functions, new ObjectMapper().readValue(json, List.class)};
+    } else {
+      String s = new ObjectMapper().readValue(json, String.class);
+      return new Object[]{functions, s};
+    }
+  }
+
   protected String transformOutput(String output) {
     return output.replaceAll("\\s+", "");
   }
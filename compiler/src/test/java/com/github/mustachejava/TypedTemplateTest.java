@@ -0,0 +1,189 @@
+package com.github.mustachejava;
+
+import com.github.mustachejava.codes.DefaultCode;
+import com.github.mustachejava.reflect.TypedBinding;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypedTemplateTest {
+
+  private static final Map<String, String> templates = new HashMap<>();
+
+  static {
+    templates.put("page.html", "{{title}} by {{author.name}}:{{#entries}} {{>entry}}{{/entries}}{{^entries}} none{{/entries}}" +
+            " [{{#numbers}}{{.}}{{/numbers}}] {{#owner}}{{name}}@{{site}}{{/owner}}");
+    templates.put("entry.html", "{{name}}({{site}}, {{author.name}}, {{count}})");
+    templates.put("base.html", "{{#items}}{{label}}/{{site}} {{/items}}");
+    templates.put("tree.html", "{{name}}[{{#children}}{{>tree}}{{/children}}]");
+    templates.put("twice.html", "{{#entries}}{{>named}}{{/entries}}{{#owner}}{{>named}}{{/owner}}");
+    templates.put("named.html", "<{{name}}>");
+  }
+
+  private static DefaultMustacheFactory factory() {
+    return new DefaultMustacheFactory() {
+      @Override
+      public Reader getReader(String resourceName) {
+        return new StringReader(templates.get(resourceName));
+      }
+    };
+  }
+
+  public static final class Author {
+    final String name;
+
+    Author(String name) {
+      this.name = name;
+    }
+  }
+
+  public static final class Entry {
+    final String name;
+    final Optional<Author> author;
+    final int count;
+
+    Entry(String name, Author author, int count) {
+      this.name = name;
+      this.author = Optional.ofNullable(author);
+      this.count = count;
+    }
+  }
+
+  public static final class Page {
+    final String title = "Typed";
+    final Author author = new Author("sam");
+    List<Entry> entries;
+    final int[] numbers = {1, 2, 3};
+    final Author owner = new Author("owner");
+
+    Page(List<Entry> entries) {
+      this.entries = entries;
+    }
+
+    String site() {
+      return "site";
+    }
+  }
+
+  public static class Item {
+    String label() {
+      return "item";
+    }
+  }
+
+  public static class SiteItem extends Item {
+    String site = "own";
+  }
+
+  public static final class Items {
+    final String site = "outer";
+    final List<Item> items;
+
+    Items(Item... items) {
+      this.items = Arrays.asList(items);
+    }
+  }
+
+  public static final class Node {
+    final String name;
+    final List<Node> children;
+
+    Node(String name, Node... children) {
+      this.name = name;
+      this.children = Arrays.asList(children);
+    }
+  }
+
+  private static String render(Mustache m, Object scope) throws IOException {
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  private static void assertSameOutput(String name, Class<?> type, Object scope) throws IOException {
+    String expected = render(factory().compile(name), scope);
+    assertEquals(expected, render(factory().compile(name, type), scope));
+  }
+
+  private static int countTyped(Code[] codes, java.util.Set<Code> seen) {
+    int count = 0;
+    if (codes != null) {
+      for (Code code : codes) {
+        if (!seen.add(code)) continue;
+        if (code instanceof DefaultCode && ((DefaultCode) code).getBinding() instanceof TypedBinding) count++;
+        count += countTyped(code.getCodes(), seen);
+      }
+    }
+    return count;
+  }
+
+  private static int countTyped(Mustache m) {
+    return countTyped(m.getCodes(), Collections.newSetFromMap(new java.util.IdentityHashMap<>()));
+  }
+
+  @Test
+  public void testTyped() throws IOException {
+    Page page = new Page(Arrays.asList(new Entry("a", new Author("x"), 1), new Entry("b", null, 2)));
+    Mustache m = factory().compile("page.html", Page.class);
+    assertEquals("Typed by sam: a(site, x, 1) b(site, , 2) [123] owner@site", render(m, page));
+    // title, author.name, entries twice, numbers, owner, name, site, the partial's 4 values
+    assertEquals(12, countTyped(m));
+    assertSameOutput("page.html", Page.class, page);
+    assertSameOutput("page.html", Page.class, new Page(Collections.emptyList()));
+  }
+
+  @Test
+  public void testCached() {
+    DefaultMustacheFactory mf = factory();
+    Mustache m = mf.compile("page.html", Page.class);
+    assertSame(m, mf.compile("page.html", Page.class));
+    assertNotSame(m, mf.compile("page.html"));
+  }
+
+  @Test
+  public void testUntypedDefault() {
+    assertEquals(0, countTyped(factory().compile("page.html")));
+  }
+
+  @Test
+  public void testNullElements() throws IOException {
+    // A null element isn't pushed so the scopes are shallower than declared
+    assertSameOutput("page.html", Page.class, new Page(Arrays.asList(new Entry("a", null, 1), null)));
+  }
+
+  @Test
+  public void testNonFinalClassesAreChecked() throws IOException {
+    Mustache m = factory().compile("base.html", Items.class);
+    assertTrue(countTyped(m) > 0);
+    assertEquals("item/outer item/own ", render(m, new Items(new Item(), new SiteItem())));
+  }
+
+  @Test
+  public void testRecursion() throws IOException {
+    assertSameOutput("tree.html", Node.class, new Node("a", new Node("b", new Node("c")), new Node("d")));
+  }
+
+  @Test
+  public void testConflictingScopes() throws IOException {
+    // The same partial is reached with Entry and Author scopes
+    Page page = new Page(Arrays.asList(new Entry("a", null, 1)));
+    Mustache m = factory().compile("twice.html", Page.class);
+    assertEquals("<a><owner>", render(m, page));
+    assertFalse(countTyped(m) == 0);
+  }
+}
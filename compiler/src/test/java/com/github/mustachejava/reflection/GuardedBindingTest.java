@@ -0,0 +1,150 @@
+package com.github.mustachejava.reflection;
+
+import com.github.mustachejava.TemplateContext;
+import com.github.mustachejava.reflect.GuardedBinding;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.reflect.ReflectionWrapper;
+import com.github.mustachejava.util.GuardException;
+import com.github.mustachejava.util.Wrapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.mustachejava.ObjectHandler.makeList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class GuardedBindingTest {
+
+  public static class Event {
+    public String name() {
+      return getClass().getSimpleName();
+    }
+  }
+
+  public static class E0 extends Event {}
+  public static class E1 extends Event {}
+  public static class E2 extends Event {}
+  public static class E3 extends Event {}
+  public static class E4 extends Event {}
+  public static class E5 extends Event {}
+  public static class E6 extends Event {}
+  public static class E7 extends Event {}
+  public static class E8 extends Event {}
+  public static class E9 extends Event {}
+
+  private static final TemplateContext TC = new TemplateContext("{{", "}}", "test", 1, false);
+
+  @Test
+  public void testStates() {
+    GuardedBinding binding = new GuardedBinding(new ReflectionObjectHandler(), "name", TC, null);
+    assertEquals(GuardedBinding.State.UNINITIALIZED, binding.getState());
+    assertEquals("E0", binding.get(makeList(new E0())));
+    assertEquals("E0", binding.get(makeList(new E0())));
+    assertEquals(GuardedBinding.State.MONOMORPHIC, binding.getState());
+    assertEquals("E1", binding.get(makeList(new E1())));
+    assertEquals(GuardedBinding.State.POLYMORPHIC, binding.getState());
+
+    List<Event> events = new ArrayList<>();
+    for (Class<?> c : GuardedBindingTest.class.getClasses()) {
+      if (c.getSuperclass() == Event.class) {
+        try {
+          events.add((Event) c.newInstance());
+        } catch (ReflectiveOperationException e) {
+          throw new AssertionError(e);
+        }
+      }
+    }
+    for (int i = 0; i < 3; i++) {
+      for (Event event : events) {
+        assertEquals(event.getClass().getSimpleName(), binding.get(makeList(event)));
+      }
+    }
+    assertEquals(GuardedBinding.State.MEGAMORPHIC, binding.getState());
+    assertEquals("E3", binding.get(makeList(new E3())));
+  }
+
+  @Test
+  public void testTryCall() {
+    ReflectionObjectHandler oh = new ReflectionObjectHandler();
+    Wrapper wrapper = oh.find("name", makeList(new E0()));
+    assertEquals("E0", wrapper.tryCall(makeList(new E0())));
+    assertSame(Wrapper.GUARD_FAILED, wrapper.tryCall(makeList(new E1())));
+    assertThrows(GuardException.class, () -> wrapper.call(makeList(new E1())));
+
+    // Wrappers that only override call still work through tryCall
+    ReflectionWrapper reflectionWrapper = (ReflectionWrapper) wrapper;
+    Wrapper legacy = new ReflectionWrapper(0, reflectionWrapper.getWrappers(), reflectionWrapper.getGuards(),
+            reflectionWrapper.getMethod(), reflectionWrapper.getArguments(), oh) {
+      @Override
+      public Object call(List<Object> scopes) throws GuardException {
+        return "legacy " + super.call(scopes);
+      }
+    };
+    assertEquals("legacy E0", legacy.tryCall(makeList(new E0())));
+    assertSame(Wrapper.GUARD_FAILED, legacy.tryCall(makeList(new E1())));
+  }
+
+  public static class Site {
+    public String other() {
+      return "site";
+    }
+  }
+
+  @Test
+  public void testAnyDepth() {
+    GuardedBinding binding = new GuardedBinding(new ReflectionObjectHandler(), "name", TC, null);
+    List<Object> scopes = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      scopes.add(new E0());
+      assertEquals("E0", binding.get(scopes));
+      assertEquals(GuardedBinding.State.MONOMORPHIC, binding.getState());
+    }
+    // Found one scope out, whatever is below it
+    binding = new GuardedBinding(new ReflectionObjectHandler(), "other", TC, null);
+    scopes.clear();
+    for (int i = 0; i < 5; i++) {
+      scopes.add(i, new E1());
+      scopes.add(i + 1, new Site());
+      scopes.add(i + 2, new E0());
+      assertEquals("site", binding.get(scopes));
+      assertEquals(GuardedBinding.State.MONOMORPHIC, binding.getState());
+      scopes.remove(i + 1);
+      scopes.remove(i + 1);
+    }
+  }
+
+  @Test
+  public void testMissingDependsOnDepth() {
+    GuardedBinding binding = new GuardedBinding(new ReflectionObjectHandler(), "other", TC, null);
+    assertEquals(null, binding.get(makeList(new E0())));
+    List<Object> scopes = new ArrayList<>();
+    scopes.add(new Site());
+    scopes.add(new E0());
+    assertEquals("site", binding.get(scopes));
+  }
+
+  @Test
+  public void testStatesOfHeldBindings() {
+    ReflectionObjectHandler oh = new ReflectionObjectHandler();
+    List<GuardedBinding> bindings = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      bindings.add(new GuardedBinding(oh, "name", TC, null));
+    }
+    bindings.get(0).get(makeList(new E0()));
+    bindings.get(1).get(makeList(new E0()));
+    bindings.get(1).get(makeList(new E1()));
+    // Totals are up to whoever holds the bindings
+    Map<GuardedBinding.State, Integer> counts = new EnumMap<>(GuardedBinding.State.class);
+    for (GuardedBinding binding : bindings) {
+      counts.merge(binding.getState(), 1, Integer::sum);
+    }
+    assertEquals(Integer.valueOf(1), counts.get(GuardedBinding.State.UNINITIALIZED));
+    assertEquals(Integer.valueOf(1), counts.get(GuardedBinding.State.MONOMORPHIC));
+    assertEquals(Integer.valueOf(1), counts.get(GuardedBinding.State.POLYMORPHIC));
+  }
+}
@@ -0,0 +1,102 @@
+package com.github.mustachejava.reflection;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.reflect.IterationStrategy;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class IterationStrategyTest {
+
+  private final Mustache m = new DefaultMustacheFactory().compile(
+          new StringReader("{{#value}}[{{.}}]{{/value}}{{^value}}empty{{/value}}"), "sections");
+
+  private String render(Object value) throws IOException {
+    StringWriter sw = new StringWriter();
+    m.execute(sw, singletonMap("value", value)).close();
+    return sw.toString();
+  }
+
+  @Test
+  public void testStrategies() {
+    assertEquals(IterationStrategy.BOOLEAN, IterationStrategy.of(Boolean.class));
+    assertEquals(IterationStrategy.STRING, IterationStrategy.of(String.class));
+    assertEquals(IterationStrategy.LIST, IterationStrategy.of(Arrays.asList(1).getClass()));
+    assertEquals(IterationStrategy.ITERABLE, IterationStrategy.of(HashSet.class));
+    assertEquals(IterationStrategy.ITERATOR, IterationStrategy.of(Collections.emptyIterator().getClass()));
+    assertEquals(IterationStrategy.OBJECT_ARRAY, IterationStrategy.of(String[].class));
+    assertEquals(IterationStrategy.INT_ARRAY, IterationStrategy.of(int[].class));
+    assertEquals(IterationStrategy.LONG_ARRAY, IterationStrategy.of(long[].class));
+    assertEquals(IterationStrategy.DOUBLE_ARRAY, IterationStrategy.of(double[].class));
+    assertEquals(IterationStrategy.ARRAY, IterationStrategy.of(char[].class));
+    assertEquals(IterationStrategy.OBJECT, IterationStrategy.of(Object.class));
+  }
+
+  @Test
+  public void testPrimitiveArrays() throws IOException {
+    assertEquals("[1][2][300]", render(new int[]{1, 2, 300}));
+    assertEquals("[4][5000000000]", render(new long[]{4, 5000000000L}));
+    assertEquals("[1.5][2.0]", render(new double[]{1.5, 2}));
+    assertEquals("[a][b]", render(new char[]{'a', 'b'}));
+    assertEquals("empty", render(new int[0]));
+    assertEquals("empty", render(new long[0]));
+    assertEquals("empty", render(new double[0]));
+  }
+
+  @Test
+  public void testProfileMismatch() throws IOException {
+    // The site sees a list first and has to fall back for everything else
+    assertEquals("[a][b]", render(Arrays.asList("a", "b")));
+    assertEquals("empty", render(Collections.emptyList()));
+    assertEquals("[x][y]", render(new String[]{"x", "y"}));
+    assertEquals("[1][2]", render(new int[]{1, 2}));
+    assertEquals("[true]", render(true));
+    assertEquals("empty", render(false));
+    assertEquals("[s]", render("s"));
+    assertEquals("empty", render(""));
+    assertEquals("[o]", render(Optional.of("o")));
+    assertEquals("empty", render(null));
+    assertEquals("[i]", render(Collections.singleton("i")));
+  }
+
+  private static List<Object> positions(IterationStrategy.Position position, Object value) {
+    List<Object> elements = new ArrayList<>();
+    if (position.begin(value)) {
+      Object next;
+      while ((next = position.next(new ReflectionObjectHandler())) != IterationStrategy.Position.DONE) {
+        elements.add(next);
+      }
+    }
+    position.end();
+    return elements;
+  }
+
+  @Test
+  public void testPosition() {
+    // One position is reused for values of different strategies
+    IterationStrategy.Position position = new IterationStrategy.Position();
+    assertEquals(Arrays.asList("a", "b"), positions(position, Arrays.asList("a", "b")));
+    assertEquals(Arrays.asList(1, 2), positions(position, new int[]{1, 2}));
+    assertEquals(Arrays.asList('c'), positions(position, new char[]{'c'}));
+    assertEquals(Arrays.asList("i"), positions(position, Collections.singleton("i")));
+    assertEquals(Arrays.asList(true), positions(position, true));
+    assertEquals(Arrays.asList("s"), positions(position, "s"));
+    assertEquals(Collections.emptyList(), positions(position, ""));
+    assertEquals(Collections.emptyList(), positions(position, new long[0]));
+    assertFalse(position.begin(null));
+  }
+}
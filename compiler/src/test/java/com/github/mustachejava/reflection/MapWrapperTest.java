@@ -0,0 +1,148 @@
+package com.github.mustachejava.reflection;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.Guard;
+import com.github.mustachejava.reflect.MapObjectHandler;
+import com.github.mustachejava.reflect.MapWrapper;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.reflect.SimpleObjectHandler;
+import com.github.mustachejava.reflect.guards.MapGuard;
+import com.github.mustachejava.util.Wrapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MapWrapperTest {
+
+  // Counts the lookups made on it
+  private static class CountingMap extends HashMap<String, Object> {
+    int lookups;
+    int containsKeys;
+
+    CountingMap(Map<String, Object> map) {
+      super(map);
+    }
+
+    @Override
+    public Object get(Object key) {
+      lookups++;
+      return super.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      containsKeys++;
+      return super.containsKey(key);
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+      lookups++;
+      return super.getOrDefault(key, defaultValue);
+    }
+  }
+
+  // getOrDefault() of HashMap doesn't know about the keys this map adds
+  private static class VirtualKeyMap extends HashMap<String, Object> {
+    @Override
+    public Object get(Object key) {
+      return "virtual".equals(key) ? "computed" : super.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return "virtual".equals(key) || super.containsKey(key);
+    }
+  }
+
+  private static Map<String, Object> map(Object... keysAndValues) {
+    Map<String, Object> map = new HashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return map;
+  }
+
+  private static String render(ObjectHandler oh, Mustache m, Object... scopes) throws IOException {
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scopes).close();
+    return sw.toString();
+  }
+
+  private static Mustache compile(ObjectHandler oh, String template) {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(oh);
+    return mf.compile(new StringReader(template), "maps");
+  }
+
+  @Test
+  public void testWrapper() {
+    List<Object> scopes = Arrays.asList(map("a", "outer"), map("b", "inner"));
+    Wrapper wrapper = new ReflectionObjectHandler().find("a", scopes);
+    assertTrue(wrapper instanceof MapWrapper);
+    assertEquals("outer", wrapper.tryCall(scopes));
+    // Only the inner scope is checked for not having the name
+    int mapGuards = 0;
+    for (Guard guard : ((MapWrapper) wrapper).getGuards()) {
+      if (guard instanceof MapGuard) mapGuards++;
+    }
+    assertEquals(1, mapGuards);
+    // The lookup fails the wrapper once the name is gone
+    assertEquals(Wrapper.GUARD_FAILED, wrapper.tryCall(Arrays.asList(map("c", "outer"), map("b", "inner"))));
+    // Or shadowed
+    assertEquals(Wrapper.GUARD_FAILED, wrapper.tryCall(Arrays.asList(map("a", "outer"), map("a", "inner"))));
+  }
+
+  @Test
+  public void testSingleLookup() throws IOException {
+    ReflectionObjectHandler oh = new ReflectionObjectHandler();
+    Mustache m = compile(oh, "{{a}}{{b}}");
+    render(oh, m, new CountingMap(map("a", "1", "b", "2")));
+    CountingMap scope = new CountingMap(map("a", "1", "b", "2"));
+    assertEquals("12", render(oh, m, scope));
+    assertEquals(2, scope.lookups);
+    assertEquals(0, scope.containsKeys);
+  }
+
+  @Test
+  public void testDotNotation() throws IOException {
+    ReflectionObjectHandler oh = new ReflectionObjectHandler();
+    Mustache m = compile(oh, "[{{a.b}}]");
+    assertEquals("[1]", render(oh, m, map("a", map("b", "1"))));
+    assertEquals("[]", render(oh, m, map("a", map("b", null))));
+    assertEquals("[]", render(oh, m, map("a", map("c", "1"))));
+    assertEquals("[2]", render(oh, m, map("a", map("b", "2"))));
+  }
+
+  @Test
+  public void testNullValues() throws IOException {
+    for (ObjectHandler oh : new ObjectHandler[]{new ReflectionObjectHandler(), new SimpleObjectHandler(), new MapObjectHandler()}) {
+      Mustache m = compile(oh, "[{{a}}]");
+      // A null value is still found and hides the outer scope
+      assertEquals("[]", render(oh, m, map("a", "outer"), map("a", null)));
+      assertEquals("[outer]", render(oh, m, map("a", "outer"), map("b", null)));
+    }
+  }
+
+  @Test
+  public void testOverriddenLookups() throws IOException {
+    for (ObjectHandler oh : new ObjectHandler[]{new ReflectionObjectHandler(), new SimpleObjectHandler(), new MapObjectHandler()}) {
+      VirtualKeyMap scope = new VirtualKeyMap();
+      scope.put("real", "value");
+      assertEquals("computed value", render(oh, compile(oh, "{{virtual}} {{real}}"), scope));
+    }
+    assertEquals("none", MapWrapper.get(new VirtualKeyMap(), "missing", "none"));
+    assertEquals("computed", MapWrapper.get(new VirtualKeyMap(), "virtual", null));
+  }
+}
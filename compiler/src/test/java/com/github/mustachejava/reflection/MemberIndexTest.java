@@ -0,0 +1,154 @@
+package com.github.mustachejava.reflection;
+
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import org.junit.Test;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MemberIndexTest {
+
+  private static class Handler extends ReflectionObjectHandler {
+    AccessibleObject member(Class<?> c, String name) {
+      return findMember(c, name);
+    }
+  }
+
+  // Overriding getMethod() finds members the way they were found before the index
+  private static class GetterHandler extends Handler {
+    int calls;
+
+    @Override
+    protected Method getMethod(Class<?> aClass, String name, Class<?>... params) throws NoSuchMethodException {
+      calls++;
+      return super.getMethod(aClass, name, params);
+    }
+  }
+
+  private static class PublicOnlyHandler extends Handler {
+    @Override
+    protected void checkMethod(Method member) throws NoSuchMethodException {
+      if (!Modifier.isPublic(member.getModifiers())) throw new NoSuchMethodException();
+    }
+
+    @Override
+    protected void checkField(Field member) throws NoSuchFieldException {
+      if (!Modifier.isPublic(member.getModifiers())) throw new NoSuchFieldException();
+    }
+  }
+
+  public static class Precedence {
+    public String value = "field";
+    String other = "other";
+
+    public boolean isValue() {
+      return true;
+    }
+
+    public String getValue() {
+      return "getter";
+    }
+
+    String value() {
+      return "method";
+    }
+
+    public String getOther() {
+      return "getter";
+    }
+
+    public boolean isFlag() {
+      return true;
+    }
+  }
+
+  public static class Base {
+    String hidden = "field";
+  }
+
+  public static class Hiding extends Base {
+    private String getHidden() {
+      return "private";
+    }
+
+    private String label() {
+      return "private";
+    }
+  }
+
+  public static class Bridged implements Supplier<String> {
+    @Override
+    public String get() {
+      return "bridged";
+    }
+  }
+
+  public static class Overrides {
+    @Override
+    public String toString() {
+      return "overrides";
+    }
+  }
+
+  private static final Object[][] cases = {
+          {Precedence.class, "value"}, {Precedence.class, "other"}, {Precedence.class, "flag"},
+          {Precedence.class, "isFlag"}, {Precedence.class, "missing"}, {Precedence.class, ""},
+          {Precedence.class, "class"}, {Precedence.class, "hashCode"}, {Overrides.class, "toString"},
+          {Base.class, "hidden"}, {Hiding.class, "hidden"}, {Hiding.class, "label"},
+          {Bridged.class, "get"}, {ArrayList.class, "size"}, {Collections.unmodifiableList(new ArrayList<>()).getClass(), "size"},
+          {String.class, "value"}, {String.class, "empty"}
+  };
+
+  @Test
+  public void testSameAsLookupByException() {
+    Handler handler = new Handler();
+    GetterHandler legacy = new GetterHandler();
+    for (Object[] c : cases) {
+      assertEquals(c[0] + "." + c[1], legacy.member((Class<?>) c[0], (String) c[1]), handler.member((Class<?>) c[0], (String) c[1]));
+    }
+    assertTrue(legacy.calls > 0);
+  }
+
+  @Test
+  public void testMembers() throws NoSuchMethodException {
+    Handler handler = new Handler();
+    assertEquals("value", ((Method) handler.member(Precedence.class, "value")).getName());
+    assertEquals("getOther", ((Method) handler.member(Precedence.class, "other")).getName());
+    assertEquals("isFlag", ((Method) handler.member(Precedence.class, "flag")).getName());
+    // A private method hides the name, so the field is found
+    assertTrue(handler.member(Hiding.class, "hidden") instanceof Field);
+    assertNull(handler.member(Hiding.class, "label"));
+    assertNull(handler.member(Precedence.class, "class"));
+    assertEquals(String.class, ((Method) handler.member(Bridged.class, "get")).getReturnType());
+    assertEquals(Overrides.class.getMethod("toString"), handler.member(Overrides.class, "toString"));
+  }
+
+  @Test
+  public void testCached() {
+    AccessibleObject member = new Handler().member(Precedence.class, "value");
+    // Shared by handlers with the same rules, including misses
+    assertSame(member, new Handler().member(Precedence.class, "value"));
+    assertNull(new Handler().member(Precedence.class, "missing"));
+    assertNull(new Handler().member(Precedence.class, "missing"));
+  }
+
+  @Test
+  public void testOwnChecks() {
+    PublicOnlyHandler handler = new PublicOnlyHandler();
+    assertEquals("getValue", ((Method) handler.member(Precedence.class, "value")).getName());
+    assertEquals("getOther", ((Method) handler.member(Precedence.class, "other")).getName());
+    assertNull(handler.member(Base.class, "hidden"));
+    // The default rules are unaffected
+    assertEquals("value", ((Method) new Handler().member(Precedence.class, "value")).getName());
+  }
+}
@@ -0,0 +1,118 @@
+package com.github.mustachejava.reflection;
+
+import com.github.mustachejava.ComplexObject;
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.reflect.MethodHandleObjectHandler;
+import com.github.mustachejava.util.Wrapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.github.mustachejava.ObjectHandler.makeList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MethodHandleObjectHandlerTest {
+
+  private static String render(DefaultMustacheFactory mf, String template, Object scope) {
+    Mustache m = mf.compile(new StringReader(template), "template");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope);
+    return sw.toString();
+  }
+
+  private static DefaultMustacheFactory createMustacheFactory() {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(new MethodHandleObjectHandler());
+    return mf;
+  }
+
+  public static class Statics {
+    public static String method() {
+      return "method";
+    }
+
+    public static final String field = "field";
+  }
+
+  @Test
+  public void testMembers() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("key", "map");
+    Object scope = new Object() {
+      final int field = 1;
+
+      String method() {
+        return "2";
+      }
+
+      boolean isProperty() {
+        return true;
+      }
+
+      private final String hidden = "hidden";
+
+      Map<String, Object> map() {
+        return map;
+      }
+    };
+    assertEquals("1 2 true  map", render(createMustacheFactory(), "{{field}} {{method}} {{property}} {{hidden}} {{map.key}}", scope));
+    assertEquals("method field", render(createMustacheFactory(), "{{method}} {{field}}", new Statics()));
+  }
+
+  @Test
+  public void testException() {
+    Object scope = new Object() {
+      String fail() {
+        throw new IllegalStateException("failed");
+      }
+    };
+    MustacheException me = assertThrows(MustacheException.class, () -> render(createMustacheFactory(), "{{fail}}", scope));
+    Throwable cause = me;
+    while (cause.getCause() != null) cause = cause.getCause();
+    assertTrue(cause instanceof IllegalStateException);
+  }
+
+  public static class Failing {
+    public String error() {
+      throw new AssertionError("error");
+    }
+
+    public String cast() {
+      return (String) (Object) 1;
+    }
+  }
+
+  @Test
+  public void testErrorsAreNotWrapped() {
+    Wrapper wrapper = new MethodHandleObjectHandler().find("error", makeList(new Failing()));
+    assertThrows(AssertionError.class, () -> wrapper.call(makeList(new Failing())));
+  }
+
+  @Test
+  public void testClassCastInMember() {
+    Wrapper wrapper = new MethodHandleObjectHandler().find("cast", makeList(new Failing()));
+    MustacheException me = assertThrows(MustacheException.class, () -> wrapper.call(makeList(new Failing())));
+    // Thrown by the method rather than a scope of the wrong class
+    assertTrue(me.getMessage(), me.getMessage().startsWith("Error invoking"));
+    assertTrue(me.getCause() instanceof ClassCastException);
+  }
+
+  @Test
+  public void testComplex() throws IOException {
+    Mustache m = createMustacheFactory().compile("complex.html");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, new ComplexObject()).close();
+    Mustache expected = new DefaultMustacheFactory().compile("complex.html");
+    StringWriter esw = new StringWriter();
+    expected.execute(esw, new ComplexObject()).close();
+    assertEquals(esw.toString(), sw.toString());
+  }
+}
@@ -0,0 +1,15 @@
+package com.github.mustachejava.reflection;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.SpecTest;
+import com.github.mustachejava.reflect.MethodHandleObjectHandler;
+
+public class MethodHandleSpecTest extends SpecTest {
+  @Override
+  protected DefaultMustacheFactory createMustacheFactory(JsonNode test) {
+    DefaultMustacheFactory mf = super.createMustacheFactory(test);
+    mf.setObjectHandler(new MethodHandleObjectHandler());
+    return mf;
+  }
+}
@@ -0,0 +1,135 @@
+package com.github.mustachejava.reflection;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.FlatMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.reflect.IterationStrategy;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultSetTest {
+
+  // Counts the reads of the metadata of every stub
+  private final AtomicInteger metaDataReads = new AtomicInteger();
+
+  // A forward only result set over the rows, the first row holds the labels
+  private ResultSet stub(Object[]... rows) {
+    Object[] labels = rows[0];
+    ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getColumnCount":
+                  return labels.length;
+                case "getColumnLabel":
+                  return labels[(Integer) args[0] - 1];
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+    int[] row = {0};
+    return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[]{ResultSet.class}, (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "next":
+                  return ++row[0] < rows.length;
+                case "isBeforeFirst":
+                  return row[0] == 0 && rows.length > 1;
+                case "isAfterLast":
+                  return row[0] >= rows.length && rows.length > 1;
+                case "getObject":
+                  return rows[row[0]][(Integer) args[0] - 1];
+                case "getMetaData":
+                  metaDataReads.incrementAndGet();
+                  return metaData;
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+
+  private static String render(Mustache m, Object scope) throws IOException {
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  private static Mustache compile(String template) {
+    return new DefaultMustacheFactory().compile(new StringReader(template), "resultset");
+  }
+
+  @Test
+  public void testRows() throws IOException {
+    Mustache m = compile("{{#rows}}{{id}}:{{NAME}}:{{missing}},{{/rows}}{{^rows}}none{{/rows}}");
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("rows", stub(new Object[]{"id", "name"}, new Object[]{1, "a"}, new Object[]{2, "b"}));
+    assertEquals("1:a:,2:b:,", render(m, scope));
+    scope.put("rows", stub(new Object[]{"id", "name"}));
+    assertEquals("none", render(m, scope));
+    assertEquals(IterationStrategy.RESULT_SET, IterationStrategy.of(stub(new Object[]{"id"}).getClass()));
+  }
+
+  @Test
+  public void testOuterScopes() throws IOException {
+    Mustache m = compile("{{#rows}}{{title}}{{id}}{{row}}{{/rows}}");
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("title", "t");
+    scope.put("rows", stub(new Object[]{"id"}, new Object[]{1}, new Object[]{2}));
+    // Methods of the result set like getRow() aren't names
+    assertEquals("t1t2", render(m, scope));
+  }
+
+  @Test
+  public void testColumnsResolvedOncePerResultSet() throws IOException {
+    Mustache m = compile("{{#rows}}{{id}}{{missing}}{{/rows}}");
+    Object[][] rows = new Object[1001][];
+    rows[0] = new Object[]{"id"};
+    for (int i = 1; i < rows.length; i++) {
+      rows[i] = new Object[]{i % 10};
+    }
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("rows", stub(rows));
+    render(m, scope);
+    int first = metaDataReads.getAndSet(0);
+    assertTrue("Metadata read " + first + " times", first < 10);
+    scope.put("rows", stub(rows));
+    render(m, scope);
+    int second = metaDataReads.get();
+    assertTrue("Metadata read " + second + " times", second < 10);
+  }
+
+  @Test
+  public void testDifferentColumns() throws IOException {
+    Mustache m = compile("{{#rows}}{{a}}-{{b}},{{/rows}}");
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("rows", stub(new Object[]{"a", "b"}, new Object[]{1, 2}));
+    assertEquals("1-2,", render(m, scope));
+    scope.put("rows", stub(new Object[]{"b", "a"}, new Object[]{3, 4}));
+    assertEquals("4-3,", render(m, scope));
+    scope.put("rows", stub(new Object[]{"b"}, new Object[]{5}));
+    assertEquals("-5,", render(m, scope));
+  }
+
+  @Test
+  public void testFlat() throws IOException {
+    Mustache m = new FlatMustacheFactory().compile(new StringReader("{{#rows}}{{id}},{{/rows}}"), "resultset");
+    Map<String, Object> scope = new HashMap<>();
+    scope.put("rows", stub(new Object[]{"id"}, new Object[]{1}, new Object[]{2}));
+    assertEquals("1,2,", render(m, scope));
+  }
+}
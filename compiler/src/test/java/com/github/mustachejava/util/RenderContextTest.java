@@ -0,0 +1,142 @@
+package com.github.mustachejava.util;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.MustacheResolver;
+import com.github.mustachejavabenchmarks.NullWriter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RenderContextTest {
+
+  @Test
+  public void testPooling() {
+    RenderContext context = RenderContext.acquire();
+    // Nested renders get their own context
+    RenderContext nested = RenderContext.acquire();
+    assertNotSame(context, nested);
+    nested.add("nested");
+    nested.release();
+    context.add("scope");
+    context.enter();
+    context.release();
+    assertTrue(context.isEmpty());
+    assertEquals(0, context.getDepth());
+    RenderContext again = RenderContext.acquire();
+    assertTrue(again == context || again == nested);
+    assertTrue(again.isEmpty());
+    again.release();
+  }
+
+  @Test
+  public void testSnapshot() {
+    RenderContext context = RenderContext.acquire();
+    try {
+      context.add("a");
+      context.enter();
+      List<Object> snapshot = RenderContext.snapshot(context);
+      context.add("b");
+      assertEquals(Collections.singletonList("a"), snapshot);
+      assertEquals(1, ((RenderContext) snapshot).getDepth());
+      snapshot.add("c");
+      assertEquals(Arrays.asList("a", "b"), context);
+    } finally {
+      context.release();
+    }
+    List<Object> plain = new InternalArrayList<>(Collections.singletonList("a"));
+    assertEquals(plain, RenderContext.snapshot(plain));
+    assertNotSame(plain, RenderContext.snapshot(plain));
+  }
+
+  private static final Map<String, String> templates = new HashMap<>();
+
+  static {
+    templates.put("recursive.html", "{{#child}}({{>recursive}}){{/child}}");
+  }
+
+  private static final MustacheResolver resolver = resourceName -> new StringReader(templates.get(resourceName));
+
+  private static class Node {
+    Node child;
+
+    Node(int depth) {
+      child = depth == 0 ? null : new Node(depth - 1);
+    }
+  }
+
+  @Test
+  public void testRecursionDepth() throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory(resolver);
+    mf.setRecursionLimit(10);
+    Mustache m = mf.compile("recursive.html");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, new Node(3)).close();
+    assertEquals("((()))", sw.toString());
+    // The depth is counted on the render context, the writer is not wrapped
+    Writer writer = m.execute(new StringWriter(), new Node(5));
+    assertTrue(writer instanceof StringWriter);
+    try {
+      m.execute(new StringWriter(), new Node(20));
+      fail("Should have hit the recursion limit");
+    } catch (MustacheException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("recursion limit"));
+    }
+    // The pooled context was reset after the failure
+    sw = new StringWriter();
+    m.execute(sw, new Node(9)).close();
+    assertEquals("((((((((()))))))))", sw.toString());
+  }
+
+  // Sees which context the render it is called from is using
+  private static class Probe {
+    RenderContext pooled;
+    boolean inUse;
+
+    String probe() {
+      RenderContext context = RenderContext.acquire();
+      inUse = context != pooled;
+      context.release();
+      return "";
+    }
+  }
+
+  @Test
+  public void testRendersReuseThePooledContext() {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory(resolver);
+    Mustache m = mf.compile("recursive.html");
+    Mustache probing = mf.compile(new StringReader("{{probe}}"), "probe");
+    m.execute(new NullWriter(), new Node(5));
+    RenderContext pooled = RenderContext.acquire();
+    pooled.release();
+    for (int i = 0; i < 3; i++) {
+      // The pooled context is taken for the render
+      Probe probe = new Probe();
+      probe.pooled = pooled;
+      probing.execute(new NullWriter(), probe);
+      assertTrue(probe.inUse);
+      // And handed back empty afterwards
+      m.execute(new NullWriter(), new Node(5));
+      RenderContext again = RenderContext.acquire();
+      assertSame(pooled, again);
+      assertTrue(again.isEmpty());
+      assertEquals(0, again.getDepth());
+      again.release();
+    }
+  }
+}
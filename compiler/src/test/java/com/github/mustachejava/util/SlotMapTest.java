@@ -0,0 +1,148 @@
+package com.github.mustachejava.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.reflect.Guard;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.reflect.SimpleObjectHandler;
+import com.github.mustachejava.reflect.SlotWrapper;
+import com.github.mustachejava.reflect.guards.MapGuard;
+import com.github.mustachejavabenchmarks.JsonInterpreterTest;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SlotMapTest {
+
+  private static final SlotSchema ITEM = SlotSchema.of("name", "price", "note");
+  private static final SlotSchema PAGE = SlotSchema.of("title", "items", "note");
+
+  private static final String TEMPLATE = "{{title}}:{{#items}} {{name}}={{price}}({{note}}){{/items}}";
+
+  private static String render(DefaultMustacheFactory mf, Object scope) throws IOException {
+    StringWriter sw = new StringWriter();
+    Mustache m = mf.compile(new StringReader(TEMPLATE), "slots");
+    m.execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  private static Map<String, Object> hashMap(SlotMap map) {
+    Map<String, Object> copy = new HashMap<>();
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      Object value = entry.getValue();
+      if (value instanceof List) {
+        Object[] list = ((List) value).toArray();
+        for (int i = 0; i < list.length; i++) {
+          list[i] = hashMap((SlotMap) list[i]);
+        }
+        value = Arrays.asList(list);
+      }
+      copy.put(entry.getKey(), value);
+    }
+    return copy;
+  }
+
+  private static SlotMap page() {
+    SlotMap first = ITEM.create("a", 1, "cheap");
+    // No note, so the note of the page is used
+    SlotMap second = ITEM.newMap();
+    second.put("name", "b");
+    second.put("price", 2);
+    // A null note hides the note of the page
+    SlotMap third = ITEM.create("c", 3, null);
+    SlotMap page = PAGE.newMap();
+    page.put("title", "Items");
+    page.put("items", Arrays.asList(first, second, third));
+    page.put("note", "page");
+    return page;
+  }
+
+  @Test
+  public void testMap() {
+    SlotMap map = ITEM.create("a", 1, null);
+    assertEquals(3, map.size());
+    assertTrue(map.containsKey("note"));
+    assertNull(map.get("note"));
+    assertFalse(map.containsKey("other"));
+    map.remove("note");
+    assertFalse(map.containsKey("note"));
+    assertEquals(2, map.size());
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("name", "a");
+    expected.put("price", 1);
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+    assertEquals("missing", map.getOrDefault("note", "missing"));
+    map.entrySet().removeIf(e -> e.getKey().equals("name"));
+    assertEquals(1, map.size());
+    try {
+      map.put("other", 1);
+      fail("Only keys of the schema can be put");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testSameAsHashMap() throws IOException {
+    SlotMap page = page();
+    String expected = render(new DefaultMustacheFactory(), hashMap(page));
+    assertEquals("Items: a=1(cheap) b=2(page) c=3()", expected);
+    assertEquals(expected, render(new DefaultMustacheFactory(), page));
+    DefaultMustacheFactory simple = new DefaultMustacheFactory();
+    simple.setObjectHandler(new SimpleObjectHandler());
+    assertEquals(expected, render(simple, page));
+  }
+
+  @Test
+  public void testSlots() {
+    ReflectionObjectHandler oh = new ReflectionObjectHandler();
+    SlotMap page = page();
+    SlotMap item = ITEM.create("a", 1, null);
+    Object wrapper = oh.find("name", Arrays.asList(page, item));
+    assertTrue(wrapper instanceof SlotWrapper);
+    assertEquals(0, ((SlotWrapper) wrapper).getSlot());
+    // Another map of the schema uses the same slot
+    assertEquals("b", ((SlotWrapper) wrapper).tryCall(Arrays.asList(page, ITEM.create("b", 2, null))));
+    // The title isn't in the item schema, no map lookup guards it
+    SlotWrapper title = (SlotWrapper) oh.find("title", Arrays.asList(page, item));
+    for (Guard guard : title.getGuards()) {
+      assertFalse(guard instanceof MapGuard);
+    }
+    assertEquals("Items", title.tryCall(Arrays.asList(page, ITEM.create("b", 2, null))));
+    // Schemas with the same keys are still different schemas
+    SlotSchema other = SlotSchema.of("name", "price", "note");
+    assertEquals(Wrapper.GUARD_FAILED, ((SlotWrapper) wrapper).tryCall(Arrays.asList(page, other.create("b", 2, null))));
+  }
+
+  @Test
+  public void testFromMapAndJson() throws IOException {
+    Map<String, Object> map = new HashMap<>();
+    map.put("name", "a");
+    map.put("ignored", "x");
+    SlotMap fromMap = ITEM.from(map);
+    assertEquals(1, fromMap.size());
+    assertEquals("a", fromMap.get("name"));
+
+    JsonNode node = new ObjectMapper().readTree("{\"name\": \"a\", \"price\": 1, \"note\": null, \"ignored\": true}");
+    SlotMap fromJson = ITEM.from(node.fields(), JsonInterpreterTest::toObject);
+    assertEquals(3, fromJson.size());
+    assertEquals("1", fromJson.get("price"));
+    assertTrue(fromJson.containsKey("note"));
+    assertNull(fromJson.get("note"));
+  }
+}
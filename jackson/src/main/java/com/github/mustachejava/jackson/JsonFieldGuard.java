@@ -0,0 +1,28 @@
+package com.github.mustachejava.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.guards.ScopeGuard;
+import com.github.mustachejava.util.Wrapper;
+
+/**
+ * Guards that a JsonNode scope doesn't have a field. Only objects have fields, so any
+ * other node passes.
+ */
+public class JsonFieldGuard extends ScopeGuard {
+  protected final String name;
+
+  public JsonFieldGuard(ObjectHandler oh, int scopeIndex, String name, Wrapper[] wrappers) {
+    super(oh, scopeIndex, wrappers);
+    this.name = name;
+  }
+
+  @Override
+  protected boolean check(Object scope) {
+    return scope instanceof JsonNode && ((JsonNode) scope).get(name) == null;
+  }
+
+  public String toString() {
+    return "[JsonFieldGuard: " + scopeIndex + " " + name + "]";
+  }
+}
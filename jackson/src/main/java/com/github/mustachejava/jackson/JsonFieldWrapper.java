@@ -0,0 +1,68 @@
+package com.github.mustachejava.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.Guard;
+import com.github.mustachejava.reflect.ReflectionWrapper;
+import com.github.mustachejava.util.Wrapper;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Gets a field of an ObjectNode scope with a single lookup. The lookup also stands in
+ * for the guard that the object still has the field, an object without it fails the
+ * wrapper.
+ */
+public class JsonFieldWrapper extends ReflectionWrapper {
+  private static final Method GET_METHOD;
+
+  static {
+    try {
+      GET_METHOD = JsonNode.class.getMethod("get", String.class);
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  protected final String name;
+
+  public JsonFieldWrapper(int scopeIndex, Wrapper[] wrappers, Guard[] guard, String name, ObjectHandler oh) {
+    super(scopeIndex, wrappers, guard, GET_METHOD, new Object[]{name}, oh);
+    this.name = name;
+  }
+
+  @Override
+  protected Object read(Object scope) {
+    if (scope instanceof ObjectNode) {
+      JsonNode value = ((ObjectNode) scope).get(name);
+      return value == null ? GUARD_FAILED : value;
+    }
+    return GUARD_FAILED;
+  }
+
+  @Override
+  protected Object invoke(Object scope, List<Object> scopes) {
+    return scope == null ? null : ((JsonNode) scope).get(name);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() * 43 + name.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof JsonFieldWrapper && name.equals(((JsonFieldWrapper) o).name) && super.equals(o);
+  }
+
+  @Override
+  public String toString() {
+    return "[JsonFieldWrapper: " + name + "]";
+  }
+}
@@ -0,0 +1,129 @@
+package com.github.mustachejava.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.github.mustachejava.Iteration;
+import com.github.mustachejava.reflect.Guard;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.util.Wrapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Renders Jackson JsonNode trees as they are, without converting them to Maps and
+ * Lists first. Names are fields of object nodes, array nodes are iterated by index
+ * and scalar nodes become the Java values they hold, so that JSON booleans and nulls
+ * are truthy and falsey the same way Java ones are. Objects are truthy even when
+ * they are empty. Other scopes are handled by reflection as usual.
+ */
+public class JsonNodeObjectHandler extends ReflectionObjectHandler {
+
+  @Override
+  public Object coerce(Object object) {
+    if (object instanceof JsonNode) {
+      JsonNode node = (JsonNode) object;
+      switch (node.getNodeType()) {
+        case OBJECT:
+        case ARRAY:
+          return node;
+        case STRING:
+          return node.textValue();
+        case BOOLEAN:
+          return node.booleanValue();
+        case NUMBER:
+          return node.numberValue();
+        case NULL:
+        case MISSING:
+          return null;
+        case POJO:
+          return coerce(((POJONode) node).getPojo());
+        default:
+          return node.asText();
+      }
+    }
+    return super.coerce(object);
+  }
+
+  @Override
+  public String stringify(Object object) {
+    if (object instanceof JsonNode && !((JsonNode) object).isContainerNode()) {
+      // Scopes passed to execute() reach {{.}} without being coerced
+      Object value = coerce(object);
+      return value == null ? "" : super.stringify(value);
+    }
+    return super.stringify(object);
+  }
+
+  @Override
+  public boolean format(Object object, Writer writer) throws IOException {
+    // Scalar nodes are formatted like the values they coerce to
+    if (object instanceof JsonNode) {
+      if (((JsonNode) object).isContainerNode()) return false;
+      object = coerce(object);
+    }
+    return formatValue(object, writer);
+  }
+
+  @Override
+  public boolean namesDependOnClass(Class<?> scopeClass) {
+    // Every object node has its own fields
+    return !JsonNode.class.isAssignableFrom(scopeClass) && super.namesDependOnClass(scopeClass);
+  }
+
+  @Override
+  protected Wrapper findWrapper(int scopeIndex, Wrapper[] wrappers, List<Guard> guards, Object scope, String name) {
+    scope = coerce(scope);
+    if (scope instanceof ObjectNode && ((ObjectNode) scope).get(name) != null) {
+      // The wrapper guards that the field is still there when it looks it up
+      return createFieldWrapper(scopeIndex, wrappers, guards, name);
+    }
+    if (scope instanceof JsonNode) {
+      // The methods of nodes aren't part of the data
+      guards.add(createFieldGuard(scopeIndex, wrappers, name));
+      return null;
+    }
+    return super.findWrapper(scopeIndex, wrappers, guards, scope, name);
+  }
+
+  @Override
+  public Writer iterate(Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+    if (object instanceof ArrayNode) {
+      ArrayNode array = (ArrayNode) object;
+      int length = array.size();
+      for (int i = 0; i < length; i++) {
+        writer = iteration.next(writer, coerce(array.get(i)), scopes);
+      }
+      return writer;
+    }
+    if (object instanceof ObjectNode) {
+      // Objects are Iterable over their values but are used as a single scope
+      return iteration.next(writer, object, scopes);
+    }
+    return super.iterate(iteration, writer, object, scopes);
+  }
+
+  @Override
+  public Writer falsey(Iteration iteration, Writer writer, Object object, List<Object> scopes) {
+    if (object instanceof ArrayNode) {
+      return ((ArrayNode) object).size() == 0 ? iteration.next(writer, object, scopes) : writer;
+    }
+    if (object instanceof ObjectNode) {
+      return writer;
+    }
+    return super.falsey(iteration, writer, object, scopes);
+  }
+
+  // Factories
+
+  protected Wrapper createFieldWrapper(int scopeIndex, Wrapper[] wrappers, List<? extends Guard> guard, String name) {
+    return new JsonFieldWrapper(scopeIndex, wrappers, guard.toArray(new Guard[0]), name, this);
+  }
+
+  protected Guard createFieldGuard(int scopeIndex, Wrapper[] wrappers, String name) {
+    return new JsonFieldGuard(this, scopeIndex, name, wrappers);
+  }
+}
@@ -0,0 +1,197 @@
+package com.github.mustachejava.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.mustachejava.MustacheException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A scope that reads the fields of a top level JSON object from a streaming parser
+ * as the template asks for them, so documents with huge arrays can be rendered without
+ * reading them into memory. Fields that aren't arrays are read as JsonNode trees. Arrays
+ * are Iterators that parse one element at a time, a section over one holds a single
+ * element in memory whatever the length of the array.
+ * <p>
+ * The parser only moves forward, which has a few consequences:
+ * <ul>
+ * <li>An array can only be iterated once, a second section over it finds it empty.</li>
+ * <li>Fields that come after an array in the document can't be found while the array is
+ * being iterated, the lookup would have to read past the elements that are left.</li>
+ * <li>Reading past an array that hasn't been iterated yet buffers its elements, so
+ * templates should use large arrays in the order they appear in the document.</li>
+ * </ul>
+ * Render with the JsonNodeObjectHandler, which handles the trees the scope returns.
+ */
+public class JsonStreamScope extends AbstractMap<String, Object> implements Closeable {
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final JsonParser parser;
+  // Fields that have been read, in document order
+  private final Map<String, Object> fields = new LinkedHashMap<>();
+  // The last array field, which may still be reading from the parser
+  private ArrayIterator array;
+  private boolean done;
+
+  /**
+   * @param parser a parser at the start of a JSON object, or before it
+   */
+  public JsonStreamScope(JsonParser parser) {
+    this.parser = parser;
+    if (parser.getCodec() == null) {
+      parser.setCodec(mapper);
+    }
+    try {
+      JsonToken token = parser.currentToken();
+      if (token == null) token = parser.nextToken();
+      if (token != JsonToken.START_OBJECT) {
+        throw new MustacheException("JSON stream must start with an object: " + token);
+      }
+    } catch (IOException e) {
+      throw new MustacheException("Failed to read JSON", e);
+    }
+  }
+
+  @Override
+  public Object get(Object key) {
+    return getOrDefault(key, null);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return find(key);
+  }
+
+  @Override
+  public Object getOrDefault(Object key, Object defaultValue) {
+    return find(key) ? fields.get(key) : defaultValue;
+  }
+
+  // Read up to the field unless it has already been read
+  private boolean find(Object key) {
+    if (fields.containsKey(key)) return true;
+    if (done || (array != null && array.isStreaming())) return false;
+    try {
+      if (array != null) {
+        array.buffer();
+        array = null;
+      }
+      JsonToken token;
+      while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        Object value;
+        if (parser.nextToken() == JsonToken.START_ARRAY) {
+          value = array = new ArrayIterator();
+        } else {
+          value = parser.readValueAsTree();
+        }
+        fields.put(name, value);
+        if (name.equals(key)) return true;
+        if (array != null) {
+          array.buffer();
+          array = null;
+        }
+      }
+      if (token != JsonToken.END_OBJECT) {
+        throw new MustacheException("Unexpected JSON token: " + token);
+      }
+      done = true;
+      return false;
+    } catch (IOException e) {
+      throw new MustacheException("Failed to read JSON", e);
+    }
+  }
+
+  /**
+   * Reads the rest of the document, buffering every array that hasn't been iterated.
+   */
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    find(null);
+    return Collections.unmodifiableMap(fields).entrySet();
+  }
+
+  @Override
+  public String toString() {
+    // Don't read the document to describe it
+    return "[JsonStreamScope: " + fields.keySet() + (done ? "]" : " ...]");
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+
+  /**
+   * The elements of an array, parsed as they are iterated until something needs
+   * to read past the array.
+   */
+  private class ArrayIterator implements Iterator<JsonNode> {
+    private JsonNode next;
+    private boolean started;
+    private boolean finished;
+    // Elements read ahead when the parser had to move past the array
+    private Iterator<JsonNode> buffered;
+
+    boolean isStreaming() {
+      return started && !finished && buffered == null;
+    }
+
+    // Read the elements that are left so the parser can move on
+    void buffer() throws IOException {
+      if (finished || buffered != null) return;
+      List<JsonNode> rest = new ArrayList<>();
+      if (next != null) rest.add(next);
+      next = null;
+      JsonNode node;
+      while ((node = read()) != null) {
+        rest.add(node);
+      }
+      buffered = rest.iterator();
+    }
+
+    private JsonNode read() throws IOException {
+      if (finished) return null;
+      if (parser.nextToken() == JsonToken.END_ARRAY) {
+        finished = true;
+        return null;
+      }
+      return parser.readValueAsTree();
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (buffered != null) return buffered.hasNext();
+      if (next == null) {
+        started = true;
+        try {
+          next = read();
+        } catch (IOException e) {
+          throw new MustacheException("Failed to read JSON", e);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public JsonNode next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      if (buffered != null) return buffered.next();
+      JsonNode node = next;
+      next = null;
+      return node;
+    }
+  }
+}
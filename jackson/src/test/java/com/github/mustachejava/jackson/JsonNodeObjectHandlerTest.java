@@ -0,0 +1,94 @@
+package com.github.mustachejava.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonNodeObjectHandlerTest {
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private static String render(String template, Object... scopes) {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(new JsonNodeObjectHandler());
+    Mustache m = mf.compile(new StringReader(template), "test");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, scopes);
+    return sw.toString();
+  }
+
+  private static JsonNode json(String json) throws IOException {
+    return mapper.readTree(json);
+  }
+
+  @Test
+  public void testFields() throws IOException {
+    JsonNode data = json("{\"name\":\"Sam\",\"age\":42,\"ratio\":1.5,\"tags\":\"<b>\"}");
+    assertEquals("Sam 42 1.5 &lt;b&gt; <b>", render("{{name}} {{age}} {{ratio}} {{tags}} {{{tags}}}", data));
+  }
+
+  @Test
+  public void testTruthiness() throws IOException {
+    JsonNode data = json("{\"yes\":true,\"no\":false,\"nothing\":null,\"empty\":[],\"object\":{}}");
+    assertEquals("yes,!no,!nothing,!empty,object,!missing,",
+            render("{{#yes}}yes,{{/yes}}{{^no}}!no,{{/no}}{{^nothing}}!nothing,{{/nothing}}" +
+                    "{{^empty}}!empty,{{/empty}}{{#object}}object,{{/object}}{{^missing}}!missing,{{/missing}}", data));
+    assertEquals("", render("{{#no}}no{{/no}}{{#nothing}}nothing{{/nothing}}{{^object}}object{{/object}}{{nothing}}", data));
+  }
+
+  @Test
+  public void testArrays() throws IOException {
+    JsonNode data = json("{\"items\":[{\"name\":\"a\"},{\"name\":\"b\"},{\"other\":1}],\"numbers\":[1,2,3]}");
+    assertEquals("a,b,,", render("{{#items}}{{name}},{{/items}}", data));
+    assertEquals("123", render("{{#numbers}}{{.}}{{/numbers}}", data));
+  }
+
+  @Test
+  public void testHoistedLoopInvariants() throws IOException {
+    JsonNode data = json("{\"siteName\":\"outer\",\"items\":[{\"n\":1},{\"n\":2,\"siteName\":\"inner\"},{\"n\":3}]}");
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(new JsonNodeObjectHandler());
+    mf.setHoistLoopInvariants(true);
+    Mustache m = mf.compile(new StringReader("{{#items}}[{{n}}:{{siteName}}]{{/items}}"), "test");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, data);
+    assertEquals("[1:outer][2:inner][3:outer]", sw.toString());
+  }
+
+  @Test
+  public void testDotNotation() throws IOException {
+    JsonNode data = json("{\"a\":{\"b\":{\"c\":\"deep\"}},\"x\":\"outer\"}");
+    assertEquals("deep", render("{{a.b.c}}", data));
+    assertEquals("outer", render("{{#a}}{{#b}}{{x}}{{/b}}{{/a}}", data));
+    assertEquals("", render("{{a.missing.c}}", data));
+  }
+
+  @Test
+  public void testNodeMethodsAreHidden() throws IOException {
+    JsonNode data = json("{\"list\":[1,2]}");
+    // size() and isEmpty() of the node must not be found by reflection
+    assertEquals("", render("{{size}}{{empty}}{{list.size}}", data));
+  }
+
+  @Test
+  public void testReusedAcrossShapes() throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(new JsonNodeObjectHandler());
+    Mustache m = mf.compile(new StringReader("{{name}}"), "test");
+    ObjectNode outer = (ObjectNode) json("{\"name\":\"outer\"}");
+    StringWriter sw = new StringWriter();
+    m.execute(sw, new Object[]{outer, json("{\"name\":\"inner\"}")});
+    m.execute(sw, new Object[]{outer, json("{\"other\":1}")});
+    m.execute(sw, new Object[]{outer, Collections.singletonMap("name", "map")});
+    assertEquals("inneroutermap", sw.toString());
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.mustachejava.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.SpecTest;
+
+/**
+ * Runs the specification against the JsonNode data of each test as it is.
+ */
+public class JsonNodeSpecTest extends SpecTest {
+  @Override
+  protected DefaultMustacheFactory createMustacheFactory(JsonNode test) {
+    DefaultMustacheFactory mf = super.createMustacheFactory(test);
+    mf.setObjectHandler(new JsonNodeObjectHandler());
+    return mf;
+  }
+
+  @Override
+  protected Object[] createScopes(JsonNode data, Object functions) {
+    if (data.isObject()) {
+      return new Object[]{data, functions};
+    }
+    return new Object[]{functions, data};
+  }
+}
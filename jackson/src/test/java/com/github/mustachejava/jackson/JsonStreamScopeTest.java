@@ -0,0 +1,66 @@
+package com.github.mustachejava.jackson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonStreamScopeTest {
+  private static final String JSON = "{\"title\":\"T\",\"rows\":[{\"n\":1},{\"n\":2}],\"total\":2}";
+
+  private static String render(String template, String json) throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(new JsonNodeObjectHandler());
+    Mustache m = mf.compile(new StringReader(template), "test");
+    StringWriter sw = new StringWriter();
+    try (JsonStreamScope scope = new JsonStreamScope(new JsonFactory().createParser(json))) {
+      m.execute(sw, scope);
+    }
+    return sw.toString();
+  }
+
+  @Test
+  public void testRender() throws IOException {
+    assertEquals("T:1,2,2", render("{{title}}:{{#rows}}{{n}},{{/rows}}{{total}}", JSON));
+    assertEquals("empty", render("{{#rows}}{{n}}{{/rows}}{{^rows}}empty{{/rows}}", "{\"rows\":[]}"));
+  }
+
+  @Test
+  public void testOutOfOrder() throws IOException {
+    // Reading total first buffers the rows
+    assertEquals("2:12", render("{{total}}:{{#rows}}{{n}}{{/rows}}", JSON));
+    assertEquals("12", render("{{missing}}{{#rows}}{{n}}{{/rows}}", JSON));
+  }
+
+  @Test
+  public void testStreamingArray() throws IOException {
+    // Fields after the array can't be seen while it is read and arrays are read once
+    assertEquals("T,T,2", render("{{#rows}}{{title}}{{total}},{{/rows}}{{total}}{{#rows}}{{n}}{{/rows}}", JSON));
+  }
+
+  @Test
+  public void testLazy() throws IOException {
+    StringBuilder sb = new StringBuilder("{\"rows\":[");
+    for (int i = 0; i < 100000; i++) {
+      if (i > 0) sb.append(',');
+      sb.append("{\"n\":").append(i).append('}');
+    }
+    sb.append("]}");
+    JsonParser parser = new JsonFactory().createParser(sb.toString());
+    JsonStreamScope scope = new JsonStreamScope(parser);
+    Iterator rows = (Iterator) scope.get("rows");
+    assertEquals(0, ((JsonNode) rows.next()).get("n").intValue());
+    assertEquals(1, ((JsonNode) rows.next()).get("n").intValue());
+    assertTrue(parser.getCurrentLocation().getCharOffset() < sb.length() / 10);
+  }
+}
@@ -0,0 +1,297 @@
+package com.github.mustachejava.processor;
+
+import com.github.mustachejava.MustacheView;
+import com.github.mustachejava.reflect.ViewAccessorTable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generates a ViewAccessorTable for each class annotated with MustacheView. Every name
+ * that a field or no argument method of the class could be found by is resolved with
+ * the same rules as BaseObjectHandler.findMember() and, when the generated code can call
+ * the member, becomes a direct call to it. Names that resolve to members the generated
+ * code can't call are left out of the table and are found by reflection. The tables are
+ * registered in META-INF/services so that ViewAccessors finds them with ServiceLoader.
+ */
+@SupportedAnnotationTypes("com.github.mustachejava.MustacheView")
+public class MustacheViewProcessor extends AbstractProcessor {
+  private static final String SERVICES = "META-INF/services/" + ViewAccessorTable.class.getName();
+  private static final String SUFFIX = "_MustacheAccessors";
+
+  private final Set<String> tables = new TreeSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(MustacheView.class)) {
+      if (element.getKind() != ElementKind.CLASS) {
+        error("@MustacheView only applies to classes", element);
+        continue;
+      }
+      TypeElement type = (TypeElement) element;
+      if (!isAccessible(type)) {
+        error("@MustacheView classes must be visible to their package", element);
+        continue;
+      }
+      try {
+        tables.add(generate(type));
+      } catch (IOException e) {
+        error("Failed to generate the accessors: " + e.getMessage(), element);
+      }
+    }
+    if (roundEnv.processingOver() && !tables.isEmpty()) {
+      try {
+        writeServices();
+      } catch (IOException e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to register the accessors: " + e.getMessage());
+      }
+    }
+    return false;
+  }
+
+  private String generate(TypeElement type) throws IOException {
+    Elements elements = processingEnv.getElementUtils();
+    PackageElement pkg = elements.getPackageOf(type);
+    String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    String binaryName = elements.getBinaryName(type).toString();
+    String className = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + SUFFIX;
+    String viewName = type.getQualifiedName().toString();
+
+    Map<String, Element> members = new TreeMap<>();
+    for (String name : names(type)) {
+      Element member = resolve(type, name);
+      if (member != null && isCallable(member, pkg)) {
+        members.put(name, member);
+      }
+    }
+
+    StringBuilder sb = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      sb.append("package ").append(packageName).append(";\n\n");
+    }
+    sb.append("/**\n * Accessors for ").append(viewName).append(" generated by ").append(getClass().getName()).append(".\n */\n");
+    sb.append("@SuppressWarnings({\"rawtypes\", \"deprecation\"})\n");
+    sb.append("public final class ").append(className).append(" implements ").append(ViewAccessorTable.class.getName()).append(" {\n");
+    sb.append("  @Override\n");
+    sb.append("  public Class<?> getViewClass() {\n");
+    sb.append("    return ").append(viewName).append(".class;\n");
+    sb.append("  }\n\n");
+    sb.append("  @Override\n");
+    sb.append("  public ").append(ViewAccessorTable.class.getPackage().getName()).append(".ViewAccessor getAccessor(String name) {\n");
+    sb.append("    switch (name) {\n");
+    for (Map.Entry<String, Element> entry : members.entrySet()) {
+      sb.append("      case \"").append(entry.getKey()).append("\":\n");
+      sb.append("        return ").append(accessor(viewName, entry.getValue())).append(";\n");
+    }
+    sb.append("      default:\n");
+    sb.append("        return null;\n");
+    sb.append("    }\n");
+    sb.append("  }\n");
+    sb.append("}\n");
+
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+      writer.write(sb.toString());
+    }
+    return qualifiedName;
+  }
+
+  // A lambda calling the member
+  private String accessor(String viewName, Element member) {
+    // Non-public members are called through the class that declares them as they may not be inherited
+    String target = member.getModifiers().contains(Modifier.PUBLIC)
+            ? viewName : ((TypeElement) member.getEnclosingElement()).getQualifiedName().toString();
+    String call = "((" + target + ") scope)." + member.getSimpleName();
+    if (member instanceof VariableElement) {
+      return "scope -> " + call;
+    }
+    if (((ExecutableElement) member).getReturnType().getKind() == TypeKind.VOID) {
+      return "scope -> {\n          " + call + "();\n          return null;\n        }";
+    }
+    return "scope -> " + call + "()";
+  }
+
+  // Every name that a member of the class could be found by
+  private Set<String> names(TypeElement type) {
+    Set<String> names = new TreeSet<>();
+    for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+      String name = member.getSimpleName().toString();
+      if (member.getKind() == ElementKind.FIELD) {
+        names.add(name);
+      } else if (member.getKind() == ElementKind.METHOD && ((ExecutableElement) member).getParameters().isEmpty()) {
+        names.add(name);
+        if (name.length() > 3 && name.startsWith("get")) {
+          names.add(decapitalize(name.substring(3)));
+        } else if (name.length() > 2 && name.startsWith("is")) {
+          names.add(decapitalize(name.substring(2)));
+        }
+      }
+    }
+    return names;
+  }
+
+  // The following mirror BaseObjectHandler.findMember() and the methods it calls
+
+  private Element resolve(TypeElement type, String name) {
+    if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+      // Members of non-public classes are looked for on their interfaces and superclasses first
+      for (TypeMirror anInterface : type.getInterfaces()) {
+        Element member = resolve(asTypeElement(anInterface), name);
+        if (member != null) return member;
+      }
+      TypeElement superclass = superclass(type);
+      if (superclass != null) {
+        Element member = resolve(superclass, name);
+        if (member != null) return member;
+      }
+    }
+    return resolveOnClass(type, name);
+  }
+
+  private Element resolveOnClass(TypeElement type, String name) {
+    if (name.isEmpty()) return null;
+    String propertyname = name.substring(0, 1).toUpperCase() + name.substring(1);
+    Element member = method(type, name);
+    if (member == null) member = method(type, "get" + propertyname);
+    if (member == null) member = method(type, "is" + propertyname);
+    if (member == null) member = field(type, name);
+    return member;
+  }
+
+  private ExecutableElement method(TypeElement type, String name) {
+    // Class.getMethod() finds public methods, including inherited ones, but not those of Object
+    for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+      if (method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty()
+              && method.getModifiers().contains(Modifier.PUBLIC) && !isObject((TypeElement) method.getEnclosingElement())) {
+        return method;
+      }
+    }
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty()) {
+        // A private method hides the name
+        return method.getModifiers().contains(Modifier.PRIVATE) ? null : method;
+      }
+    }
+    TypeElement superclass = superclass(type);
+    return superclass == null ? null : method(superclass, name);
+  }
+
+  private VariableElement field(TypeElement type, String name) {
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      if (field.getSimpleName().contentEquals(name)) {
+        // A private field hides the name
+        return field.getModifiers().contains(Modifier.PRIVATE) ? null : field;
+      }
+    }
+    TypeElement superclass = superclass(type);
+    return superclass == null ? null : field(superclass, name);
+  }
+
+  // Whether code generated in the package of the view can call the member
+  private boolean isCallable(Element member, PackageElement pkg) {
+    Set<Modifier> modifiers = member.getModifiers();
+    if (modifiers.contains(Modifier.PRIVATE)) return false;
+    TypeElement declaringType = (TypeElement) member.getEnclosingElement();
+    // Static methods of interfaces aren't inherited
+    if (declaringType.getKind() == ElementKind.INTERFACE && member.getKind() == ElementKind.METHOD
+            && modifiers.contains(Modifier.STATIC)) {
+      return false;
+    }
+    if (modifiers.contains(Modifier.PUBLIC)) return true;
+    return processingEnv.getElementUtils().getPackageOf(declaringType).equals(pkg) && isAccessible(declaringType);
+  }
+
+  private static boolean isAccessible(TypeElement type) {
+    for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      TypeElement t = (TypeElement) e;
+      if (t.getModifiers().contains(Modifier.PRIVATE)) return false;
+      if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS) return false;
+    }
+    return true;
+  }
+
+  private TypeElement superclass(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED) return null;
+    TypeElement element = asTypeElement(superclass);
+    return isObject(element) ? null : element;
+  }
+
+  private TypeElement asTypeElement(TypeMirror type) {
+    Types types = processingEnv.getTypeUtils();
+    return (TypeElement) types.asElement(type);
+  }
+
+  private static boolean isObject(TypeElement type) {
+    return type.getQualifiedName().contentEquals("java.lang.Object");
+  }
+
+  private static String decapitalize(String name) {
+    return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private void writeServices() throws IOException {
+    Filer filer = processingEnv.getFiler();
+    // Keep the tables of classes that weren't compiled this time
+    Set<String> services = new TreeSet<>(tables);
+    try {
+      FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+      try (Reader reader = new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8)) {
+        BufferedReader br = new BufferedReader(reader);
+        String line;
+        while ((line = br.readLine()) != null) {
+          line = line.trim();
+          if (!line.isEmpty() && !line.startsWith("#")) services.add(line);
+        }
+      }
+    } catch (IOException e) {
+      // Nothing registered yet
+    }
+    FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+    try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+      for (String service : services) {
+        writer.write(service);
+        writer.write("\n");
+      }
+    }
+  }
+
+  private void error(String message, Element element) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -0,0 +1,13 @@
+package com.github.mustachejava.processor;
+
+public class BaseView {
+  String inherited = "inherited field";
+
+  String label() {
+    return "base label";
+  }
+
+  public boolean isActive() {
+    return true;
+  }
+}
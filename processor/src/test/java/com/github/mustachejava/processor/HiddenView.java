@@ -0,0 +1,11 @@
+package com.github.mustachejava.processor;
+
+import com.github.mustachejava.MustacheView;
+
+// Members of a non-public class are looked for on its interfaces first
+@MustacheView
+class HiddenView implements Titled {
+  String title() {
+    return "hidden title";
+  }
+}
@@ -0,0 +1,115 @@
+package com.github.mustachejava.processor;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.ObjectHandler;
+import com.github.mustachejava.reflect.AccessorWrapper;
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+import com.github.mustachejava.reflect.SimpleObjectHandler;
+import com.github.mustachejava.reflect.ViewAccessor;
+import com.github.mustachejava.reflect.ViewAccessorTable;
+import com.github.mustachejava.reflect.ViewAccessors;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MustacheViewProcessorTest {
+
+  private static final String TEMPLATE = "{{title}} {{name}} {{label}} {{count}} {{active}} {{inherited}} {{secret}} {{touch}}" +
+          "{{#items}} {{value}}{{/items}} {{items.size}}";
+
+  // Finds every member by reflection
+  private static class ReflectiveHandler extends ReflectionObjectHandler {
+    @Override
+    protected ViewAccessor findAccessor(Class<?> sClass, String name) {
+      return null;
+    }
+  }
+
+  private static String render(ObjectHandler oh, String template, Object scope) throws IOException {
+    DefaultMustacheFactory mf = new DefaultMustacheFactory();
+    mf.setObjectHandler(oh);
+    StringWriter sw = new StringWriter();
+    mf.compile(new StringReader(template), "test").execute(sw, scope).close();
+    return sw.toString();
+  }
+
+  @Test
+  public void testTable() {
+    ViewAccessorTable table = ViewAccessors.getTable(PageView.class);
+    assertNotNull(table);
+    assertEquals(PageView.class, table.getViewClass());
+    for (String name : new String[]{"title", "name", "label", "count", "active", "isActive", "inherited", "items", "getItems", "touch"}) {
+      assertNotNull(name, table.getAccessor(name));
+    }
+    assertNull(table.getAccessor("secret"));
+    assertNull(table.getAccessor("missing"));
+    assertNull(table.getAccessor("class"));
+    assertNull(table.getAccessor("hashCode"));
+    assertNotNull(ViewAccessors.getTable(PageView.Item.class));
+    assertNull(ViewAccessors.getTable(BaseView.class));
+  }
+
+  @Test
+  public void testSameAsReflection() throws IOException {
+    PageView page = new PageView();
+    String expected = render(new ReflectiveHandler(), TEMPLATE, page);
+    assertEquals("page title name method page label 2 true inherited field   A B 2", expected);
+    assertEquals(expected, render(new ReflectionObjectHandler(), TEMPLATE, page));
+    assertEquals(expected, render(new SimpleObjectHandler(), TEMPLATE, page));
+  }
+
+  @Test
+  public void testInterfacesFirst() throws IOException {
+    assertEquals("interface title", render(new ReflectiveHandler(), "{{title}}", new HiddenView()));
+    assertEquals("interface title", render(new ReflectionObjectHandler(), "{{title}}", new HiddenView()));
+    assertNotNull(ViewAccessors.find(HiddenView.class, "title"));
+  }
+
+  @Test
+  public void testWrappers() {
+    ReflectionObjectHandler oh = new ReflectionObjectHandler();
+    assertTrue(oh.find("title", Collections.singletonList(new PageView())) instanceof AccessorWrapper);
+    // The last step of the dot notation is on a List
+    assertFalse(oh.find("items.size", Collections.singletonList(new PageView())) instanceof AccessorWrapper);
+    // Handlers with their own rules for members don't use the table
+    ReflectionObjectHandler publicOnly = new ReflectionObjectHandler() {
+      @Override
+      protected void checkField(java.lang.reflect.Field member) throws NoSuchFieldException {
+        if (!java.lang.reflect.Modifier.isPublic(member.getModifiers())) throw new NoSuchFieldException();
+      }
+    };
+    assertFalse(publicOnly.find("title", Collections.singletonList(new PageView())) instanceof AccessorWrapper);
+  }
+
+  @Test
+  public void testFailure() throws IOException {
+    try {
+      render(new ReflectionObjectHandler(), "{{failing}}", new PageView());
+      fail("Should have failed");
+    } catch (MustacheException e) {
+      Throwable cause = e;
+      while (cause.getCause() != null) cause = cause.getCause();
+      assertEquals("failed", cause.getMessage());
+    }
+  }
+
+  @Test
+  public void testGeneratedClass() throws Exception {
+    Class<?> generated = Class.forName("com.github.mustachejava.processor.PageView_Item_MustacheAccessors");
+    Method getAccessor = generated.getMethod("getAccessor", String.class);
+    ViewAccessor accessor = (ViewAccessor) getAccessor.invoke(generated.newInstance(), "value");
+    assertEquals("X", accessor.get(new PageView.Item("x")));
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.mustachejava.processor;
+
+import com.github.mustachejava.MustacheView;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+@MustacheView
+public class PageView extends BaseView {
+  public String title = "page title";
+  protected int count = 2;
+  private String secret = "secret";
+  // Found before the field
+  String name = "name field";
+
+  String name() {
+    return "name method";
+  }
+
+  @Override
+  String label() {
+    return "page label";
+  }
+
+  public List<Item> getItems() {
+    return Arrays.asList(new Item("a"), new Item("b"));
+  }
+
+  void touch() {
+  }
+
+  public String failing() throws IOException {
+    throw new IOException("failed");
+  }
+
+  @MustacheView
+  public static class Item {
+    final String value;
+
+    Item(String value) {
+      this.value = value;
+    }
+
+    String getValue() {
+      return value.toUpperCase();
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.github.mustachejava.processor;
+
+public interface Titled {
+  default String getTitle() {
+    return "interface title";
+  }
+}
@@ -0,0 +1,21 @@
+package com.twitter.mustache
+
+import com.github.mustachejava.ObjectHandler
+import com.github.mustachejava.reflect.guards.ScopeGuard
+import com.github.mustachejava.util.Wrapper
+
+/**
+ * Guards whether or not a name was present in the Scala map.
+ */
+class ScalaMapGuard(handler: ObjectHandler, index: Int, name: String, contains: Boolean, dots: Array[Wrapper])
+  extends ScopeGuard(handler, index, dots) {
+
+  override protected def check(scope: AnyRef): Boolean = {
+    scope match {
+      case m: collection.Map[_, _] => m.asInstanceOf[collection.Map[Any, Any]].contains(name) == contains
+      case _ => false
+    }
+  }
+
+  override def toString: String = "[ScalaMapGuard: " + scopeIndex + " " + name + " " + contains + "]"
+}
@@ -1,15 +1,16 @@
 package com.twitter.mustache
 
-import collection.JavaConversions._
 import com.github.mustachejava.Iteration
-import com.github.mustachejava.reflect.ReflectionObjectHandler
+import com.github.mustachejava.reflect.{Guard, ReflectionObjectHandler}
+import com.github.mustachejava.util.Wrapper
 import java.io.Writer
 import java.lang.reflect.{Field, Method}
 import runtime.BoxedUnit
-import scala.reflect.ClassTag
 
 /**
  * Plain old scala handler that doesn't depend on Twitter libraries.
+ * Scala maps are looked up and Scala collections are iterated as they are,
+ * without converting them to Java collections.
  */
 class ScalaObjectHandler extends ReflectionObjectHandler {
 
@@ -20,7 +21,6 @@ class ScalaObjectHandler extends ReflectionObjectHandler {
 
   override def coerce(value: AnyRef) = {
     value match {
-      case m: collection.Map[_, _] => mapAsJavaMap(m)
       case u: BoxedUnit => null
       case Some(some: AnyRef) => coerce(some)
       case None => null
@@ -28,13 +28,52 @@ class ScalaObjectHandler extends ReflectionObjectHandler {
     }
   }
 
+  override def findWrapper(scopeIndex: Int, wrappers: Array[Wrapper], guards: java.util.List[Guard], scope: AnyRef, name: String): Wrapper = {
+    coerce(scope) match {
+      case m: collection.Map[_, _] =>
+        // Like a Java map, only the keys of a Scala map are names
+        if (m.asInstanceOf[collection.Map[Any, Any]].contains(name)) {
+          new ScalaMapWrapper(scopeIndex, wrappers, guards.toArray(new Array[Guard](0)), name, this)
+        } else {
+          guards.add(new ScalaMapGuard(this, scopeIndex, name, false, wrappers))
+          null
+        }
+      case _ => super.findWrapper(scopeIndex, wrappers, guards, scope, name)
+    }
+  }
+
+  // Every Scala map has its own keys
+  override def namesDependOnClass(scopeClass: Class[_]): Boolean = {
+    !classOf[collection.Map[_, _]].isAssignableFrom(scopeClass) && super.namesDependOnClass(scopeClass)
+  }
+
   override def iterate(iteration: Iteration, writer: Writer, value: AnyRef, scopes: java.util.List[AnyRef]) = {
     value match {
-      case TraversableAnyRef(t) => {
+      case m: collection.Map[_, _] => iteration.next(writer, value, scopes)
+      case s: collection.IndexedSeq[_] => {
+        var newWriter = writer
+        val size = s.length
+        var i = 0
+        while (i < size) {
+          newWriter = iteration.next(newWriter, coerce(s(i).asInstanceOf[AnyRef]), scopes)
+          i += 1
+        }
+        newWriter
+      }
+      case l: collection.LinearSeq[_] => {
+        var newWriter = writer
+        var rest = l.asInstanceOf[collection.LinearSeq[Any]]
+        while (!rest.isEmpty) {
+          newWriter = iteration.next(newWriter, coerce(rest.head.asInstanceOf[AnyRef]), scopes)
+          rest = rest.tail
+        }
+        newWriter
+      }
+      case t: Traversable[_] => {
         var newWriter = writer
         t foreach {
           next =>
-            newWriter = iteration.next(newWriter, coerce(next), scopes)
+            newWriter = iteration.next(newWriter, coerce(next.asInstanceOf[AnyRef]), scopes)
         }
         newWriter
       }
@@ -45,7 +84,8 @@ class ScalaObjectHandler extends ReflectionObjectHandler {
 
   override def falsey(iteration: Iteration, writer: Writer, value: AnyRef, scopes: java.util.List[AnyRef]) = {
     value match {
-      case TraversableAnyRef(t) => {
+      case m: collection.Map[_, _] => writer
+      case t: Traversable[_] => {
         if (t.isEmpty) {
           iteration.next(writer, value, scopes)
         } else {
@@ -56,14 +96,4 @@ class ScalaObjectHandler extends ReflectionObjectHandler {
       case _ => super.falsey(iteration, writer, value, scopes)
     }
   }
-
-  val TraversableAnyRef = new Def[Traversable[AnyRef]]
-  class Def[C: ClassTag] {
-    def unapply[X: ClassTag](x: X): Option[C] = {
-      x match {
-        case c: C => Some(c)
-        case _ => None
-      }
-    }
-  }
 }
@@ -1,12 +1,38 @@
 package com.twitter.mustache
 
-import com.twitter.util.Future
-import java.util.concurrent.Callable
+import com.twitter.util.{Future, Return, Throw}
+import java.util.WeakHashMap
+import java.util.concurrent.{Callable, CompletableFuture}
 
-class TwitterObjectHandler extends ScalaObjectHandler {
+/**
+ * Twitter futures are evaluated concurrently on the executor of the factory.
+ * By default each pending future holds an executor thread that waits for it.
+ * With nonBlocking a future is bridged to a CompletionStage instead and the
+ * render resumes from its completion callback, so no thread waits for it.
+ */
+class TwitterObjectHandler(nonBlocking: Boolean) extends ScalaObjectHandler {
 
-  override def coerce(value: Object) = {
+  def this() = this(false)
+
+  // A lookup coerces the same future several times, it is bridged once. Futures
+  // compare by identity and the stage doesn't refer to its future.
+  private val stages = new WeakHashMap[Future[_], CompletableFuture[AnyRef]]()
+
+  override def coerce(value: Object): AnyRef = {
     value match {
+      case f: Future[_] if nonBlocking => stages.synchronized {
+        var stage = stages.get(f)
+        if (stage == null) {
+          stage = new CompletableFuture[AnyRef]()
+          stages.put(f, stage)
+          val bridged = stage
+          f respond {
+            case Return(result) => bridged.complete(coerce(result.asInstanceOf[AnyRef]))
+            case Throw(e) => bridged.completeExceptionally(e)
+          }
+        }
+        stage
+      }
       case f: Future[_] => {
         new Callable[Any]() {
           def call() = {
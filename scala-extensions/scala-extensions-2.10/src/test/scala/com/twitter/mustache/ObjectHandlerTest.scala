@@ -1,9 +1,9 @@
 package com.twitter.mustache
 
 import com.github.mustachejava.DefaultMustacheFactory
-import com.twitter.util.{Future, FuturePool}
+import com.twitter.util.{Future, FuturePool, Promise}
 import java.io.{StringWriter, StringReader}
-import java.util.concurrent.{Callable, Executors}
+import java.util.concurrent.{Callable, CompletableFuture, Executors, ThreadPoolExecutor}
 import org.junit.{Assert, Test}
 
 class ObjectHandlerTest {
@@ -58,6 +58,39 @@ class ObjectHandlerTest {
     Assert.assertEquals("Hello, world!?!\nGoodbye, thanks for all the fish!!?test\n", sw.toString)
   }
 
+  @Test
+  def testTwitterHandlerNonBlocking() {
+    val pool = Executors.newFixedThreadPool(2).asInstanceOf[ThreadPoolExecutor]
+    val mf = new DefaultMustacheFactory()
+    mf.setObjectHandler(new TwitterObjectHandler(true))
+    mf.setExecutorService(pool)
+    val m = mf.compile(new StringReader("{{#list}}{{value}},{{/list}}{{^empty}}!{{/empty}}"), "helloworld")
+    val promises = (0 until 30).map(i => new Promise[String])
+    val empty = new Promise[Boolean]
+    val sw = new StringWriter
+    val writer = m.execute(sw, Map("list" -> promises.map(p => Map("value" -> p)), "empty" -> empty))
+    // No thread waits for the pending futures
+    Assert.assertEquals(0, pool.getTaskCount)
+    empty.setValue(false)
+    promises.zipWithIndex.reverse foreach {
+      case (p, i) => p.setValue(i.toString)
+    }
+    writer.close()
+    Assert.assertEquals((0 until 30).mkString("", ",", ",") + "!", sw.toString)
+    pool.shutdown()
+  }
+
+  @Test
+  def testTwitterHandlerBridgesOnce() {
+    val oh = new TwitterObjectHandler(true)
+    val promise = new Promise[String]
+    // Each coerce of a pending future in a lookup gets the same stage
+    val stage = oh.coerce(promise)
+    Assert.assertSame(stage, oh.coerce(promise))
+    promise.setValue("done")
+    Assert.assertEquals("done", stage.asInstanceOf[CompletableFuture[AnyRef]].get())
+  }
+
   @Test
   def testScalaHandler() {
     val pool = Executors.newCachedThreadPool()
@@ -167,4 +200,42 @@ class ObjectHandlerTest {
     val w = m.execute(sw, Map( "map" -> TestClass("fred") ) ).close()
     Assert.assertEquals("fred", sw.toString())
   }
+
+  @Test
+  def testMapMissingName() {
+    val mf = new DefaultMustacheFactory()
+    mf.setObjectHandler(new ScalaObjectHandler)
+    val m = mf.compile(new StringReader("{{#maps}}{{test}}{{size}}{{map.test}},{{/maps}}"), "helloworld")
+    val sw = new StringWriter
+    m.execute(sw, Map("test" -> "outer", "maps" -> List(
+      Map("test" -> "fred", "map" -> Map("test" -> "inner")),
+      Map("other" -> 1),
+      Map[String, Any]("test" -> None, "map" -> Map.empty)))).close()
+    Assert.assertEquals("fredinner,outer,,", sw.toString)
+  }
+
+  @Test
+  def testCollections() {
+    val mf = new DefaultMustacheFactory()
+    mf.setObjectHandler(new ScalaObjectHandler)
+    val m = mf.compile(new StringReader("{{#values}}{{.}}{{/values}}{{^values}}none{{/values}};"), "helloworld")
+    val sw = new StringWriter
+    for (values <- Seq(List(1, 2, 3), Vector("a", "b"), Array(4, 5).toSeq, collection.mutable.ArrayBuffer("c"),
+                       Set(6), Nil, Vector.empty)) {
+      m.execute(sw, Map("values" -> values)).close()
+    }
+    Assert.assertEquals("123;ab;45;c;6;none;none;", sw.toString)
+  }
+
+  @Test
+  def testHoistedMapKeys() {
+    val mf = new DefaultMustacheFactory()
+    mf.setObjectHandler(new ScalaObjectHandler)
+    mf.setHoistLoopInvariants(true)
+    val m = mf.compile(new StringReader("{{#items}}[{{n}}:{{siteName}}]{{/items}}"), "helloworld")
+    val sw = new StringWriter
+    m.execute(sw, Map("siteName" -> "outer", "items" -> List(
+      Map("n" -> 1), Map("n" -> 2, "siteName" -> "inner"), Map("n" -> 3)))).close()
+    Assert.assertEquals("[1:outer][2:inner][3:outer]", sw.toString)
+  }
 }
@@ -0,0 +1,39 @@
+package com.twitter.mustache
+
+import com.github.mustachejava.ObjectHandler
+import com.github.mustachejava.reflect.{Guard, ReflectionWrapper}
+import com.github.mustachejava.util.Wrapper
+
+/**
+ * Gets a name out of a Scala map scope without converting it to a Java map. The
+ * lookup also stands in for the guard that the map still has the name, a map
+ * without it fails the wrapper the same way a ScalaMapGuard would have.
+ */
+class ScalaMapWrapper(index: Int, dots: Array[Wrapper], checks: Array[Guard], val name: String, handler: ObjectHandler)
+  extends ReflectionWrapper(index, dots, checks, ScalaMapWrapper.GetMethod, Array[AnyRef](name), handler) {
+
+  override protected def read(scope: AnyRef): AnyRef = {
+    scope match {
+      case m: collection.Map[_, _] =>
+        m.asInstanceOf[collection.Map[Any, AnyRef]].getOrElse(name, Wrapper.GUARD_FAILED)
+      case _ => Wrapper.GUARD_FAILED
+    }
+  }
+
+  override protected def invoke(scope: AnyRef, scopes: java.util.List[AnyRef]): AnyRef = {
+    if (scope == null) null else scope.asInstanceOf[collection.Map[Any, AnyRef]].getOrElse(name, null)
+  }
+
+  override def hashCode(): Int = super.hashCode() * 43 + name.hashCode
+
+  override def equals(o: Any): Boolean = o match {
+    case w: ScalaMapWrapper => name == w.name && super.equals(w)
+    case _ => false
+  }
+
+  override def toString: String = "[ScalaMapWrapper: " + name + "]"
+}
+
+object ScalaMapWrapper {
+  val GetMethod = classOf[collection.Map[_, _]].getMethod("get", classOf[AnyRef])
+}
@@ -130,4 +130,42 @@ class ObjectHandlerTest {
     val w = m.execute(sw, Map( "map" -> TestClass("fred") ) ).close()
     Assert.assertEquals("fred", sw.toString())
   }
+
+  @Test
+  def testMapMissingName() {
+    val mf = new DefaultMustacheFactory()
+    mf.setObjectHandler(new ScalaObjectHandler)
+    val m = mf.compile(new StringReader("{{#maps}}{{test}}{{size}}{{map.test}},{{/maps}}"), "helloworld")
+    val sw = new StringWriter
+    m.execute(sw, Map("test" -> "outer", "maps" -> List(
+      Map("test" -> "fred", "map" -> Map("test" -> "inner")),
+      Map("other" -> 1),
+      Map[String, Any]("test" -> None, "map" -> Map.empty)))).close()
+    Assert.assertEquals("fredinner,outer,,", sw.toString)
+  }
+
+  @Test
+  def testCollections() {
+    val mf = new DefaultMustacheFactory()
+    mf.setObjectHandler(new ScalaObjectHandler)
+    val m = mf.compile(new StringReader("{{#values}}{{.}}{{/values}}{{^values}}none{{/values}};"), "helloworld")
+    val sw = new StringWriter
+    for (values <- Seq(List(1, 2, 3), Vector("a", "b"), Array(4, 5).toSeq, collection.mutable.ArrayBuffer("c"),
+                       Set(6), Nil, Vector.empty)) {
+      m.execute(sw, Map("values" -> values)).close()
+    }
+    Assert.assertEquals("123;ab;45;c;6;none;none;", sw.toString)
+  }
+
+  @Test
+  def testHoistedMapKeys() {
+    val mf = new DefaultMustacheFactory()
+    mf.setObjectHandler(new ScalaObjectHandler)
+    mf.setHoistLoopInvariants(true)
+    val m = mf.compile(new StringReader("{{#items}}[{{n}}:{{siteName}}]{{/items}}"), "helloworld")
+    val sw = new StringWriter
+    m.execute(sw, Map("siteName" -> "outer", "items" -> List(
+      Map("n" -> 1), Map("n" -> 2, "siteName" -> "inner"), Map("n" -> 3)))).close()
+    Assert.assertEquals("[1:outer][2:inner][3:outer]", sw.toString)
+  }
 }